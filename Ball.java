@@ -1,31 +1,92 @@
 package game;
 
 import java.awt.*;
+import java.util.List;
 
 /**
  * Represents the ball in the game. The ball moves within the game window,
  * bouncing off walls, the paddle, and bricks.
  * 
+ * Movement is swept: each tick the ball's path is tested for the earliest
+ * contact, the ball is moved up to it and reflected, and the rest of the tick's
+ * movement continues from there. The ball therefore cannot pass through thin
+ * bricks or the paddle at any speed, and several contacts in one tick are
+ * resolved in the order they happen.
+ * 
+ * A ball never changes the bricks while it moves. The bricks it hits are
+ * only recorded, and the {@link World} destroys them once every ball has
+ * moved, so balls can move in parallel against the same board.
+ * 
+ * The ball moves at sub-pixel positions with any velocity. Walls, bricks and
+ * obstacles reflect it about their surface normal. The top of the paddle sends it
+ * off at an angle set by where it landed, up to {@link #MAX_BOUNCE_ANGLE} from
+ * straight up at the paddle's ends, and speeds it up by {@link #SPEED_STEP} up to
+ * {@link #MAX_SPEED}. All of this is plain {@code double} arithmetic and
+ * {@link StrictMath}, which give the same bits on every JVM, so replays and
+ * parallel simulations stay exact.
+ * 
  * Implements the {@link GameObject} interface to allow rendering and updates.
  * 
  * @author Team
  * @version 1.0
  */
 public class Ball implements GameObject {
+    /** The most contacts resolved in a single tick. */
+    private static final int MAX_CONTACTS = 4;
+
+    /** The width of the playing field when the ball is moved without a world. */
+    private static final int FIELD_WIDTH = 800;
+
+    /** The largest angle from straight up the paddle sends the ball off at, in radians. */
+    private static final double MAX_BOUNCE_ANGLE = StrictMath.toRadians(60);
+
+    /** How much faster the ball gets each time the paddle returns it, in pixels per tick. */
+    private static final double SPEED_STEP = 0.2;
+
+    /** The fastest the paddle speeds the ball up to, in pixels per tick. */
+    private static final double MAX_SPEED = 12;
+
+    /** The smallest share of the ball's speed kept along y, so it never settles into bouncing sideways forever. */
+    private static final double MIN_VERTICAL = 0.3;
+
     /** The x-coordinate of the ball. */
-    private int x;
+    private double x;
 
     /** The y-coordinate of the ball. */
-    int y;
+    private double y;
 
     /** The diameter of the ball. */
     private int diameter;
 
-    /** The horizontal speed of the ball. */
-    private int dx = 6;
+    /** The horizontal speed of the ball, in pixels per tick. */
+    private double dx = 6;
+
+    /** The vertical speed of the ball, in pixels per tick. */
+    private double dy = -6;
+
+    /** The x-coordinate of the ball at the start of the last tick. */
+    private double prevX;
 
-    /** The vertical speed of the ball. */
-    private int dy = -6;
+    /** The y-coordinate of the ball at the start of the last tick. */
+    private double prevY;
+
+    /** The contact being resolved; reused every tick. */
+    private final Contact contact = new Contact();
+
+    /** Receives the bricks near the ball's path from {@link ChunkedGrid#query}; grown whenever more are found. */
+    private int[] candidates = new int[256];
+
+    /** The bricks hit during the last tick, in the order they were hit. */
+    private final int[] hits = new int[MAX_CONTACTS];
+
+    /** The number of entries in {@link #hits}. */
+    private int hitCount;
+
+    /** The number of collision tests run during the last tick. */
+    private int collisionChecks;
+
+    /** The number of bricks looked at during the last tick. */
+    private int bricksVisited;
 
     /**
      * Constructs a ball with the given position and size.
@@ -38,6 +99,75 @@ public class Ball implements GameObject {
         this.x = x;
         this.y = y;
         this.diameter = diameter;
+        this.prevX = x;
+        this.prevY = y;
+    }
+
+    /**
+     * Constructs a ball with the given position, size, and speeds.
+     * 
+     * @param x        The initial x-coordinate of the ball.
+     * @param y        The initial y-coordinate of the ball.
+     * @param diameter The diameter of the ball.
+     * @param dx       The horizontal speed of the ball.
+     * @param dy       The vertical speed of the ball.
+     */
+    public Ball(int x, int y, int diameter, double dx, double dy) {
+        this(x, y, diameter);
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    /**
+     * Puts the ball back in play at the given position and speeds, as if newly created,
+     * so that a pooled ball can be served again.
+     * 
+     * @param inX  The x-coordinate of the ball.
+     * @param inY  The y-coordinate of the ball.
+     * @param inDx The horizontal speed of the ball.
+     * @param inDy The vertical speed of the ball.
+     * @return void This method does not return a value.
+     */
+    public void reset(int inX, int inY, double inDx, double inDy) {
+        x = inX;
+        y = inY;
+        prevX = inX;
+        prevY = inY;
+        dx = inDx;
+        dy = inDy;
+        clearHits();
+    }
+
+    /**
+     * Puts the ball back exactly where and how it was moving, as when restoring a saved game.
+     * 
+     * @param inX     The x-coordinate of the ball.
+     * @param inY     The y-coordinate of the ball.
+     * @param inDx    The horizontal speed of the ball.
+     * @param inDy    The vertical speed of the ball.
+     * @param inPrevX The x-coordinate of the ball at the start of the last tick.
+     * @param inPrevY The y-coordinate of the ball at the start of the last tick.
+     * @return void This method does not return a value.
+     */
+    public void restore(double inX, double inY, double inDx, double inDy, double inPrevX, double inPrevY) {
+        x = inX;
+        y = inY;
+        dx = inDx;
+        dy = inDy;
+        prevX = inPrevX;
+        prevY = inPrevY;
+        clearHits();
+    }
+
+    /**
+     * Forgets the bricks hit and the collision work done during the last tick.
+     * 
+     * @return void This method does not return a value.
+     */
+    public void clearHits() {
+        hitCount = 0;
+        collisionChecks = 0;
+        bricksVisited = 0;
     }
 
     /**
@@ -49,7 +179,66 @@ public class Ball implements GameObject {
     @Override
     public void draw(Graphics brush) {
         brush.setColor(Color.WHITE);
-        brush.fillOval(x, y, diameter, diameter);
+        brush.fillOval((int) Math.round(x), (int) Math.round(y), diameter, diameter);
+    }
+
+    /**
+     * Draws the ball between its previous and current tick positions.
+     * 
+     * @param brush The graphics context used for drawing.
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return void This method does not return a value.
+     */
+    @Override
+    public void draw(Graphics brush, double alpha) {
+        brush.setColor(Color.WHITE);
+        brush.fillOval((int) Math.round(getDrawX(alpha)), (int) Math.round(getDrawY(alpha)), diameter, diameter);
+    }
+
+    /**
+     * Queues the ball to be drawn between its previous and current tick positions.
+     * 
+     * @param queue The render queue to add to.
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return void This method does not return a value.
+     */
+    @Override
+    public void draw(RenderQueue queue, double alpha) {
+        queue.fillOval(Color.WHITE, Math.round(getDrawX(alpha)), Math.round(getDrawY(alpha)), diameter, diameter);
+    }
+
+    /**
+     * Gets the x-coordinate the ball is drawn at, between its previous and current tick positions.
+     * 
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return The interpolated x-coordinate.
+     */
+    public double getDrawX(double alpha) {
+        return prevX + (x - prevX) * alpha;
+    }
+
+    /**
+     * Gets the y-coordinate the ball is drawn at, between its previous and current tick positions.
+     * 
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return The interpolated y-coordinate.
+     */
+    public double getDrawY(double alpha) {
+        return prevY + (y - prevY) * alpha;
+    }
+
+    /**
+     * Marks the area the ball can be drawn in this frame, anywhere between its
+     * previous and current tick positions, as needing a redraw.
+     * 
+     * @param region The region to add the area to.
+     * @return void This method does not return a value.
+     */
+    public void addBounds(DirtyRegion region) {
+        int minX = (int) Math.floor(Math.min(prevX, x));
+        int minY = (int) Math.floor(Math.min(prevY, y));
+        region.add(minX - 1, minY - 1, (int) Math.ceil(Math.abs(x - prevX)) + diameter + 3,
+                (int) Math.ceil(Math.abs(y - prevY)) + diameter + 3);
     }
 
     /**
@@ -60,27 +249,296 @@ public class Ball implements GameObject {
      */
     @Override
     public void update() {
-        x += dx;
-        y += dy;
+        advance(null);
+    }
 
-        // Bounce off left and right walls
-        if (x <= 0 || x + diameter >= 800) {
-            dx = -dx;
+    /**
+     * Moves the ball through one tick, bouncing off the walls, the paddle,
+     * and any standing bricks it reaches, in the order it reaches them.
+     * Bricks that are hit are recorded in {@link #getHit(int)} rather than destroyed,
+     * and are not hit again in the same tick. The ball is then pushed out of any
+     * polygon obstacle it ended up overlapping.
+     * 
+     * Only the ball itself is changed, so several balls may advance at once
+     * against the same world.
+     * 
+     * @param world The world the ball is in, or {@code null} to only bounce off the walls.
+     * @return The number of bricks hit.
+     */
+    public int advance(World world) {
+        List<Paddle> paddles = world == null ? null : world.getPaddles();
+        BrickField bricks = world == null ? null : world.getBricks();
+        ChunkedGrid grid = world == null ? null : world.getGrid();
+        int fieldWidth = world == null ? FIELD_WIDTH : world.getWidth();
+        prevX = x;
+        prevY = y;
+        double radius = diameter / 2.0;
+        double remaining = 1;
+        clearHits();
+
+        for (int pass = 0; pass < MAX_CONTACTS && remaining > 0; pass++) {
+            double cx = x + radius;
+            double cy = y + radius;
+            contact.reset(remaining);
+
+            // Walls: left, right, and top
+            Sweep.circleVsWallX(cx, radius, dx, 0, 1, contact);
+            Sweep.circleVsWallX(cx, radius, dx, fieldWidth, -1, contact);
+            Sweep.circleVsWallY(cy, radius, dy, 0, 1, contact);
+            collisionChecks += 3;
+
+            if (paddles != null) {
+                for (int p = 0; p < paddles.size(); p++) {
+                    Paddle paddle = paddles.get(p);
+                    Sweep.circleVsBox(cx, cy, radius, dx, dy, paddle.x, paddle.y,
+                            paddle.x + paddle.width, paddle.y + paddle.height, Contact.PADDLE, p, contact);
+                }
+                collisionChecks += paddles.size();
+            }
+
+            if (bricks != null) {
+                double endX = cx + dx * remaining;
+                double endY = cy + dy * remaining;
+                int minX = (int) Math.floor(Math.min(cx, endX) - radius);
+                int minY = (int) Math.floor(Math.min(cy, endY) - radius);
+                int maxX = (int) Math.ceil(Math.max(cx, endX) + radius);
+                int maxY = (int) Math.ceil(Math.max(cy, endY) + radius);
+                int found = grid.query(minX, minY, maxX, maxY, candidates);
+                if (found > candidates.length) {
+                    // Tiny bricks packed along a fast path; every one of them must be tested
+                    candidates = new int[Integer.highestOneBit(found) << 1];
+                    found = grid.query(minX, minY, maxX, maxY, candidates);
+                }
+                bricksVisited += found;
+                for (int i = 0; i < found; i++) {
+                    int b = candidates[i];
+                    if (hasHit(b)) {
+                        continue;
+                    }
+                    Sweep.circleVsBox(cx, cy, radius, dx, dy, bricks.getX(b), bricks.getY(b),
+                            bricks.getX(b) + bricks.getWidth(b), bricks.getY(b) + bricks.getHeight(b),
+                            Contact.BRICK, b, contact);
+                    collisionChecks++;
+                }
+            }
+
+            // Move up to the contact, or through the rest of the tick if nothing was hit
+            x += dx * contact.time;
+            y += dy * contact.time;
+            remaining -= contact.time;
+            if (contact.kind == Contact.NONE) {
+                break;
+            }
+
+            if (contact.kind == Contact.PADDLE && contact.normalY < 0) {
+                bouncePaddle(paddles.get(contact.index));
+            } else {
+                reflect(contact.normalX, contact.normalY);
+            }
+            if (contact.kind == Contact.BRICK) {
+                hits[hitCount++] = contact.index;
+            }
         }
 
-        // Bounce off the top wall
-        if (y <= 0) {
-            dy = -dy;
+        if (world != null) {
+            resolveObstacles(world.getObstacles());
         }
+        return hitCount;
     }
 
     /**
-     * Reverses the ball's vertical direction when it hits the paddle.
+     * Checks whether a brick was already hit during this tick.
+     * 
+     * @param brick The index of the brick.
+     * @return {@code true} if the ball hit that brick this tick, otherwise {@code false}.
+     */
+    private boolean hasHit(int brick) {
+        for (int i = 0; i < hitCount; i++) {
+            if (hits[i] == brick) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of bricks hit during the last tick.
+     * 
+     * @return The number of bricks hit.
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets one of the bricks hit during the last tick.
+     * 
+     * @param i Which hit, from {@code 0} to {@link #getHitCount()} exclusive, in the order they happened.
+     * @return The index of the brick that was hit.
+     */
+    public int getHit(int i) {
+        return hits[i];
+    }
+
+    /**
+     * Gets the number of collision tests run during the last tick, against walls,
+     * the paddle, bricks and obstacles.
+     * 
+     * @return The number of tests.
+     */
+    public int getCollisionChecks() {
+        return collisionChecks;
+    }
+
+    /**
+     * Gets the number of bricks the grid handed back as candidates during the last tick.
+     * 
+     * @return The number of bricks looked at.
+     */
+    public int getBricksVisited() {
+        return bricksVisited;
+    }
+
+    /**
+     * Pushes the ball out of every obstacle it overlaps, along the separating
+     * normal, and bounces it if it is moving into the obstacle.
+     * 
+     * @param obstacles The polygon obstacles to test.
+     * @return void This method does not return a value.
+     */
+    private void resolveObstacles(List<Polygon> obstacles) {
+        double radius = diameter / 2.0;
+        collisionChecks += obstacles.size();
+        for (int i = 0; i < obstacles.size(); i++) {
+            if (!obstacles.get(i).collideCircle(x + radius, y + radius, radius, contact)) {
+                continue;
+            }
+            x += contact.normalX * contact.depth;
+            y += contact.normalY * contact.depth;
+            if (dx * contact.normalX + dy * contact.normalY < 0) {
+                reflect(contact.normalX, contact.normalY);
+            }
+        }
+    }
+
+    /**
+     * Bounces the ball off a surface with the given unit normal, keeping its speed.
+     * 
+     * @param normalX The x-component of the surface normal.
+     * @param normalY The y-component of the surface normal.
+     * @return void This method does not return a value.
+     */
+    private void reflect(double normalX, double normalY) {
+        double along = dx * normalX + dy * normalY;
+        if (along < 0) {
+            dx -= 2 * along * normalX;
+            dy -= 2 * along * normalY;
+        }
+        keepVertical();
+    }
+
+    /**
+     * Sends the ball up off the top of the paddle, at an angle from straight up
+     * that grows with how far from the paddle's centre it landed, and a little faster.
+     * 
+     * @param paddle The paddle the ball landed on.
+     * @return void This method does not return a value.
+     */
+    public void bouncePaddle(Paddle paddle) {
+        double half = paddle.width / 2.0;
+        double offset = (x + diameter / 2.0 - (paddle.x + half)) / half;
+        double angle = Math.max(-1, Math.min(1, offset)) * MAX_BOUNCE_ANGLE;
+        double speed = Math.min(MAX_SPEED, getSpeed() + SPEED_STEP);
+        dx = speed * StrictMath.sin(angle);
+        dy = -speed * StrictMath.cos(angle);
+    }
+
+    /**
+     * Steepens the ball's path if it has become too flat, keeping its speed and direction along each axis.
      * 
      * @return void This method does not return a value.
      */
-    public void bouncePaddle() {
-        dy = -dy;
+    private void keepVertical() {
+        double speed = getSpeed();
+        double minDy = speed * MIN_VERTICAL;
+        if (Math.abs(dy) >= minDy) {
+            return;
+        }
+        dy = dy > 0 ? minDy : -minDy;
+        double side = StrictMath.sqrt(speed * speed - minDy * minDy);
+        dx = dx < 0 ? -side : side;
+    }
+
+    /**
+     * Gets the x-coordinate of the ball.
+     * 
+     * @return The x-coordinate of the ball's top-left corner.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Gets the y-coordinate of the ball.
+     * 
+     * @return The y-coordinate of the ball's top-left corner.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Gets the x-coordinate of the ball at the start of the last tick.
+     * 
+     * @return The previous x-coordinate.
+     */
+    public double getPrevX() {
+        return prevX;
+    }
+
+    /**
+     * Gets the y-coordinate of the ball at the start of the last tick.
+     * 
+     * @return The previous y-coordinate.
+     */
+    public double getPrevY() {
+        return prevY;
+    }
+
+    /**
+     * Gets the diameter of the ball.
+     * 
+     * @return The diameter in pixels.
+     */
+    public int getDiameter() {
+        return diameter;
+    }
+
+    /**
+     * Gets the horizontal speed of the ball.
+     * 
+     * @return The distance moved along x per tick.
+     */
+    public double getDx() {
+        return dx;
+    }
+
+    /**
+     * Gets the vertical speed of the ball.
+     * 
+     * @return The distance moved along y per tick.
+     */
+    public double getDy() {
+        return dy;
+    }
+
+    /**
+     * Gets how fast the ball is moving in any direction.
+     * 
+     * @return The distance moved per tick.
+     */
+    public double getSpeed() {
+        return StrictMath.sqrt(dx * dx + dy * dy);
     }
 
     /**
@@ -0,0 +1,189 @@
+package game;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many independent sessions through headless worlds at once, each with its
+ * own {@link PaddleController}, for tuning difficulty from many simulated players.
+ * Sessions run on a {@link ForkJoinPool} with one world per session and nothing
+ * shared between them but the level's brick layout, so throughput grows with the
+ * number of cores. Each session's result is written as a CSV line as soon as it
+ * finishes, so results stream out however many sessions are played.
+ *
+ * Run with {@code java -Djava.awt.headless=true game.BatchRunner [options]}:
+ * {@code --sessions=n} (default 1000), {@code --max-ticks=n} (default 100000),
+ * {@code --controller=intercept|follow|random} (default intercept), {@code --level=<file>},
+ * {@code --threads=n} (default all cores), {@code --seed=n} and
+ * {@code --out=<file>} (default standard output).
+ *
+ * @author Team
+ * @version 1.0
+ */
+public class BatchRunner {
+    /** The header line of the results. */
+    private static final String HEADER = "session,seed,controller,outcome,score,ticks,ticks_to_clear,bricks_remaining\n";
+
+    /** The longest stretch a key is held by a random controller, in ticks. */
+    private static final int MAX_HOLD = 60;
+
+    /** The length of a random controller's script before it starts over, in ticks. */
+    private static final int SCRIPT_LENGTH = 10_000;
+
+    /** The number of sessions to play. */
+    private int sessions = 1000;
+
+    /** The most ticks a session is played for before it is cut off. */
+    private long maxTicks = 100_000;
+
+    /** The kind of controller to play with. */
+    private String controller = "intercept";
+
+    /** The level to play, or {@code null} for the standard board. */
+    private Level level;
+
+    /** The number of threads to play on. */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /** Seeds each session's controller. */
+    private long seed = 1;
+
+    /** The ticks played by every session so far. */
+    private final LongAdder ticksPlayed = new LongAdder();
+
+    /** The sessions won so far. */
+    private final LongAdder sessionsWon = new LongAdder();
+
+    /**
+     * Runs a batch as set by the command line.
+     *
+     * @param args The options described above.
+     * @throws Exception If the level cannot be loaded or the results cannot be written.
+     * @return void This method does not return a value.
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        BatchRunner runner = new BatchRunner();
+        String out = null;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--sessions=")) {
+                runner.sessions = Integer.parseInt(value);
+            } else if (arg.startsWith("--max-ticks=")) {
+                runner.maxTicks = Long.parseLong(value);
+            } else if (arg.startsWith("--controller=")) {
+                runner.controller = value;
+            } else if (arg.startsWith("--level=")) {
+                runner.level = Level.load(Paths.get(value));
+            } else if (arg.startsWith("--threads=")) {
+                runner.threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--seed=")) {
+                runner.seed = Long.parseLong(value);
+            } else if (arg.startsWith("--out=")) {
+                out = value;
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        Writer writer = out == null ? new BufferedWriter(new OutputStreamWriter(System.out))
+                : Files.newBufferedWriter(Paths.get(out));
+        long start = System.nanoTime();
+        try (writer) {
+            runner.run(writer);
+        }
+        long elapsed = System.nanoTime() - start;
+        long ticks = runner.ticksPlayed.sum();
+        System.err.printf("%d sessions, %d won, %d ticks on %d threads in %.2f s (%.0f ticks/s)%n",
+                runner.sessions, runner.sessionsWon.sum(), ticks, runner.threads, elapsed / 1e9,
+                ticks * 1e9 / Math.max(1, elapsed));
+    }
+
+    /**
+     * Plays every session and writes their results as they finish.
+     *
+     * @param writer Receives the header and one line per session, in the order sessions finish.
+     * @throws IOException If the results cannot be written.
+     * @throws InterruptedException If interrupted while waiting for the sessions.
+     * @return void This method does not return a value.
+     */
+    public void run(Writer writer) throws IOException, InterruptedException {
+        writer.write(HEADER);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, sessions).parallel().forEach(session -> {
+                String line = play(session);
+                synchronized (writer) {
+                    try {
+                        writer.write(line);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            })).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays one session until it is won, lost or cut off.
+     *
+     * @param session The number of the session.
+     * @return The session's result line.
+     */
+    private String play(int session) {
+        long sessionSeed = new SplittableRandom(seed + session).nextLong();
+        World world = level == null ? new World(800, 600) : new World(level);
+        PaddleController paddle = createController(sessionSeed);
+        while (world.getState() == World.State.RUNNING && world.getTick() < maxTicks) {
+            world.tick(paddle.nextInput(world));
+        }
+
+        World.State state = world.getState();
+        ticksPlayed.add(world.getTick());
+        if (state == World.State.WON) {
+            sessionsWon.increment();
+        }
+        String outcome = state == World.State.RUNNING ? "timeout" : state.name().toLowerCase(Locale.ROOT);
+        return session + "," + sessionSeed + "," + controller + "," + outcome + "," + world.getScore() + ","
+                + world.getTick() + "," + (state == World.State.WON ? world.getTick() : -1) + ","
+                + world.getBricks().liveCount() + "\n";
+    }
+
+    /**
+     * Creates the controller for one session.
+     *
+     * @param sessionSeed The session's seed.
+     * @return A new controller.
+     */
+    private PaddleController createController(long sessionSeed) {
+        SplittableRandom random = new SplittableRandom(sessionSeed);
+        switch (controller) {
+            case "intercept":
+                return new PaddleController.Intercept(0, random.nextInt(-30, 31));
+            case "follow":
+                return new PaddleController.Follow(random.nextInt(-40, 41), random.nextInt(0, 20));
+            case "random":
+                return PaddleController.Scripted.random(random.nextLong(), SCRIPT_LENGTH, MAX_HOLD);
+            default:
+                throw new IllegalArgumentException("Unknown controller " + controller);
+        }
+    }
+}
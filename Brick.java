@@ -6,27 +6,28 @@ import java.awt.*;
  * Represents a brick in the game. Bricks can be hit by the ball and destroyed.
  * Implements the {@link GameObject} interface to allow rendering and updates.
  * 
+ * A brick is a lightweight view over one entry of a {@link BrickField}, which holds
+ * the actual coordinates and hit state. A view can be moved to another entry with
+ * {@link #at(int)}, so one instance can walk a whole field without allocating.
+ * 
  * @author Team
  * @version 1.0
  */
 public class Brick implements GameObject {
-    /** The x-coordinate of the brick. */
-    int x;
-
-    /** The y-coordinate of the brick. */
-    int y;
-
-    /** The width of the brick. */
-    int width;
+    /** The fill color of each brick type, starting with type {@code 1}; further types reuse them in turn. */
+    private static final Color[] COLORS = {
+        Color.PINK, Color.ORANGE, Color.YELLOW, Color.GREEN, Color.MAGENTA, Color.LIGHT_GRAY
+    };
 
-    /** The height of the brick. */
-    int height;
+    /** The field holding this brick's data. */
+    private final BrickField field;
 
-    /** Indicates whether the brick has been hit. */
-    boolean hit = false;
+    /** The index of this brick in its field. */
+    private int index;
 
     /**
-     * Constructs a brick with the specified position and dimensions.
+     * Constructs a brick with the specified position and dimensions,
+     * backed by a field of its own.
      * 
      * @param x      The x-coordinate of the brick.
      * @param y      The y-coordinate of the brick.
@@ -35,10 +36,40 @@ public class Brick implements GameObject {
      * @return void This constructor does not return a value.
      */
     public Brick(int x, int y, int width, int height) {
-        this.x = x;
-        this.y = y;
-        this.width = width;
-        this.height = height;
+        this.field = new BrickField(1);
+        this.index = field.add(x, y, width, height);
+    }
+
+    /**
+     * Constructs a view of a brick stored in a field.
+     * 
+     * @param field The field holding the brick.
+     * @param index The index of the brick in the field.
+     * @return void This constructor does not return a value.
+     */
+    Brick(BrickField field, int index) {
+        this.field = field;
+        this.index = index;
+    }
+
+    /**
+     * Moves this view to another brick of the same field.
+     * 
+     * @param index The index of the brick to view.
+     * @return This brick, now viewing the given index.
+     */
+    Brick at(int index) {
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * Gets the index of this brick in its field.
+     * 
+     * @return The index of the brick.
+     */
+    public int getIndex() {
+        return index;
     }
 
     /**
@@ -49,11 +80,26 @@ public class Brick implements GameObject {
      */
     @Override
     public void draw(Graphics brush) {
-        if (!hit) {
-            brush.setColor(Color.PINK);
-            brush.fillRect(x, y, width, height);
+        if (!isHit()) {
+            brush.setColor(getColor());
+            brush.fillRect(getX(), getY(), getWidth(), getHeight());
             brush.setColor(Color.BLACK);
-            brush.drawRect(x, y, width, height);
+            brush.drawRect(getX(), getY(), getWidth(), getHeight());
+        }
+    }
+
+    /**
+     * Queues the brick to be drawn if it has not been hit.
+     * 
+     * @param queue The render queue to add to.
+     * @param alpha Ignored, since bricks do not move.
+     * @return void This method does not return a value.
+     */
+    @Override
+    public void draw(RenderQueue queue, double alpha) {
+        if (!isHit()) {
+            queue.fillRect(getColor(), getX(), getY(), getWidth(), getHeight());
+            queue.drawRect(Color.BLACK, getX(), getY(), getWidth(), getHeight());
         }
     }
 
@@ -63,7 +109,7 @@ public class Brick implements GameObject {
      * @return void This method does not return a value.
      */
     public void destroy() {
-        hit = true;
+        field.destroy(index);
     }
 
     /**
@@ -72,7 +118,7 @@ public class Brick implements GameObject {
      * @return {@code true} if the brick has been hit, otherwise {@code false}.
      */
     public boolean isHit() {
-        return hit;
+        return !field.isAlive(index);
     }
 
     /**
@@ -81,7 +127,7 @@ public class Brick implements GameObject {
      * @return The x-coordinate of the brick.
      */
     public int getX() {
-        return x;
+        return field.getX(index);
     }
 
     /**
@@ -90,7 +136,7 @@ public class Brick implements GameObject {
      * @return The y-coordinate of the brick.
      */
     public int getY() {
-        return y;
+        return field.getY(index);
     }
 
     /**
@@ -99,7 +145,7 @@ public class Brick implements GameObject {
      * @return The width of the brick.
      */
     public int getWidth() {
-        return width;
+        return field.getWidth(index);
     }
 
     /**
@@ -108,7 +154,35 @@ public class Brick implements GameObject {
      * @return The height of the brick.
      */
     public int getHeight() {
-        return height;
+        return field.getHeight(index);
+    }
+
+    /**
+     * Gets the type of the brick.
+     * 
+     * @return The brick's type, {@code 1} for a plain brick.
+     */
+    public byte getType() {
+        return field.getType(index);
+    }
+
+    /**
+     * Gets the fill color of the brick, which depends on its type.
+     * 
+     * @return The fill color.
+     */
+    private Color getColor() {
+        return colorOf(getType());
+    }
+
+    /**
+     * Gets the fill color of a brick type.
+     * 
+     * @param type The brick type.
+     * @return The fill color of bricks of that type.
+     */
+    static Color colorOf(byte type) {
+        return COLORS[Math.floorMod(type - 1, COLORS.length)];
     }
 
     /**
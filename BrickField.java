@@ -0,0 +1,383 @@
+package game;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Stores every brick of a board as parallel primitive arrays instead of one object per brick.
+ * A brick is identified by its index in the field. Whether it is still standing is one bit
+ * in a {@code long[]} bitset, so destroying a brick is O(1), resetting the board is
+ * O(N/64), and walking the live bricks skips 64 destroyed ones at a time.
+ *
+ * {@link Brick} is a flyweight view over one index of a field.
+ *
+ * {@link #copy()} makes a field with its own liveness that shares the positions,
+ * sizes and types with the original, so many worlds can play one large board
+ * without each holding its layout. A field whose layout is shared copies it
+ * before adding a brick.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class BrickField {
+    /** The x-coordinates of the bricks. */
+    private int[] x;
+
+    /** The y-coordinates of the bricks. */
+    private int[] y;
+
+    /** The widths of the bricks. */
+    private int[] width;
+
+    /** The heights of the bricks. */
+    private int[] height;
+
+    /** The type of each brick, which decides how it looks; {@code 1} is the plain brick. */
+    private byte[] type;
+
+    /** One bit per brick, set while the brick has not been hit. */
+    private long[] alive;
+
+    /** The number of bricks in the field. */
+    private int count;
+
+    /** The number of bricks that have not been hit. */
+    private int liveCount;
+
+    /** Whether the layout arrays may be shared with another field, so must be copied before adding. */
+    private boolean sharedLayout;
+
+    /** Told the index of every brick that is destroyed, or {@code null}. */
+    private IntConsumer destroyListener;
+
+    /** Counts the changes to liveness not told to the destroy listener. */
+    private long unreportedChanges;
+
+    /**
+     * Constructs an empty field with room for the given number of bricks.
+     * The field grows as needed when more bricks are added.
+     *
+     * @param capacity The number of bricks to make room for.
+     * @return void This constructor does not return a value.
+     */
+    public BrickField(int capacity) {
+        capacity = Math.max(1, capacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        width = new int[capacity];
+        height = new int[capacity];
+        type = new byte[capacity];
+        alive = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * Constructs a field with the same bricks as another, standing or not, sharing its layout.
+     *
+     * @param source The field to copy.
+     * @return void This constructor does not return a value.
+     */
+    private BrickField(BrickField source) {
+        x = source.x;
+        y = source.y;
+        width = source.width;
+        height = source.height;
+        type = source.type;
+        alive = source.alive.clone();
+        count = source.count;
+        liveCount = source.liveCount;
+        sharedLayout = true;
+    }
+
+    /**
+     * Builds a field of equally sized bricks laid out in rows and columns from the top-left corner.
+     *
+     * @param cols        The number of bricks in each row.
+     * @param rows        The number of rows.
+     * @param brickWidth  The width of each brick.
+     * @param brickHeight The height of each brick.
+     * @param gap         The space between neighbouring bricks.
+     * @return The new field.
+     */
+    public static BrickField grid(int cols, int rows, int brickWidth, int brickHeight, int gap) {
+        BrickField field = new BrickField(cols * rows);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                field.add(col * (brickWidth + gap), row * (brickHeight + gap), brickWidth, brickHeight);
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Adds a standing brick to the field.
+     *
+     * @param bx     The x-coordinate of the brick.
+     * @param by     The y-coordinate of the brick.
+     * @param bw     The width of the brick.
+     * @param bh     The height of the brick.
+     * @return The index of the new brick.
+     */
+    public int add(int bx, int by, int bw, int bh) {
+        return add(bx, by, bw, bh, (byte) 1);
+    }
+
+    /**
+     * Adds a standing brick of the given type to the field.
+     *
+     * @param bx     The x-coordinate of the brick.
+     * @param by     The y-coordinate of the brick.
+     * @param bw     The width of the brick.
+     * @param bh     The height of the brick.
+     * @param bType  The type of the brick, from {@code 1} to {@code 127}.
+     * @return The index of the new brick.
+     */
+    public int add(int bx, int by, int bw, int bh, byte bType) {
+        if (count == x.length || sharedLayout) {
+            int capacity = count == x.length ? count * 2 : x.length;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            type = Arrays.copyOf(type, capacity);
+            alive = Arrays.copyOf(alive, (capacity + 63) >>> 6);
+            sharedLayout = false;
+        }
+        int index = count++;
+        x[index] = bx;
+        y[index] = by;
+        width[index] = bw;
+        height[index] = bh;
+        type[index] = bType;
+        alive[index >>> 6] |= 1L << index;
+        liveCount++;
+        return index;
+    }
+
+    /**
+     * Makes a field with the same bricks, standing or not, and its own liveness.
+     * The two fields share the bricks' positions, sizes and types until either
+     * adds a brick. The destroy listener is not copied.
+     *
+     * @return The new field.
+     */
+    public BrickField copy() {
+        sharedLayout = true;
+        return new BrickField(this);
+    }
+
+    /**
+     * Marks a brick as hit, and tells the destroy listener if the brick was standing.
+     *
+     * @param index The index of the brick.
+     * @return {@code true} if the brick was standing, {@code false} if it had already been hit.
+     */
+    public boolean destroy(int index) {
+        long bit = 1L << index;
+        long word = alive[index >>> 6];
+        if ((word & bit) == 0) {
+            return false;
+        }
+        alive[index >>> 6] = word & ~bit;
+        liveCount--;
+        if (destroyListener != null) {
+            destroyListener.accept(index);
+        }
+        return true;
+    }
+
+    /**
+     * Sets what to tell when a brick is destroyed, for effects such as breaking
+     * particles. Resetting the field does not tell the listener anything; see
+     * {@link #getUnreportedChanges()}.
+     *
+     * @param listener Accepts the index of each destroyed brick, or {@code null} for none.
+     * @return void This method does not return a value.
+     */
+    public void setDestroyListener(IntConsumer listener) {
+        destroyListener = listener;
+    }
+
+    /**
+     * Stands every brick back up.
+     *
+     * @return void This method does not return a value.
+     */
+    public void reset() {
+        int full = count >>> 6;
+        Arrays.fill(alive, 0, full, -1L);
+        if ((count & 63) != 0) {
+            alive[full] = (1L << count) - 1;
+        }
+        liveCount = count;
+        unreportedChanges++;
+    }
+
+    /**
+     * Checks whether a brick is still standing.
+     *
+     * @param index The index of the brick.
+     * @return {@code true} if the brick has not been hit, otherwise {@code false}.
+     */
+    public boolean isAlive(int index) {
+        return (alive[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Finds the first standing brick at or after the given index.
+     * Live bricks are visited with
+     * {@code for (int i = field.nextAlive(0); i >= 0; i = field.nextAlive(i + 1))}.
+     *
+     * @param from The index to start searching from.
+     * @return The index of the next standing brick, or {@code -1} if there is none.
+     */
+    public int nextAlive(int from) {
+        if (from >= count) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = alive[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == alive.length) {
+                return -1;
+            }
+            word = alive[w];
+        }
+        int index = (w << 6) + Long.numberOfTrailingZeros(word);
+        return index < count ? index : -1;
+    }
+
+    /**
+     * Gets the number of {@code long} words holding the liveness bits.
+     *
+     * @return The number of words covering every brick in the field.
+     */
+    public int wordCount() {
+        return (count + 63) >>> 6;
+    }
+
+    /**
+     * Sets 64 liveness bits at once, as read from {@link #liveWord}, without
+     * telling the destroy listener. Bits past the last brick are ignored.
+     *
+     * @param w    The index of the word.
+     * @param bits The liveness bits of that word.
+     * @return void This method does not return a value.
+     */
+    public void setLiveWord(int w, long bits) {
+        if (w == (count >>> 6) && (count & 63) != 0) {
+            bits &= (1L << count) - 1;
+        }
+        liveCount += Long.bitCount(bits) - Long.bitCount(alive[w]);
+        alive[w] = bits;
+        unreportedChanges++;
+    }
+
+    /**
+     * Counts the resets and restored liveness words, the changes the destroy listener
+     * is not told about. Whoever follows the field through the listener must look at
+     * every brick again whenever this count has moved.
+     *
+     * @return The number of unreported changes so far.
+     */
+    public long getUnreportedChanges() {
+        return unreportedChanges;
+    }
+
+    /**
+     * Gets 64 liveness bits at once: bit {@code b} of word {@code w} is set
+     * while brick {@code w * 64 + b} is standing.
+     *
+     * @param w The index of the word.
+     * @return The liveness bits of that word.
+     */
+    public long liveWord(int w) {
+        return alive[w];
+    }
+
+    /**
+     * Computes a fingerprint of which bricks are standing.
+     *
+     * @return The checksum of the liveness bits.
+     */
+    public long checksum() {
+        return Arrays.hashCode(alive) * 31L + count;
+    }
+
+    /**
+     * Gets the number of bricks in the field, standing or not.
+     *
+     * @return The number of bricks.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of bricks that are still standing.
+     *
+     * @return The number of standing bricks.
+     */
+    public int liveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Gets the x-coordinate of a brick.
+     *
+     * @param index The index of the brick.
+     * @return The x-coordinate of the brick.
+     */
+    public int getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Gets the y-coordinate of a brick.
+     *
+     * @param index The index of the brick.
+     * @return The y-coordinate of the brick.
+     */
+    public int getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Gets the width of a brick.
+     *
+     * @param index The index of the brick.
+     * @return The width of the brick.
+     */
+    public int getWidth(int index) {
+        return width[index];
+    }
+
+    /**
+     * Gets the height of a brick.
+     *
+     * @param index The index of the brick.
+     * @return The height of the brick.
+     */
+    public int getHeight(int index) {
+        return height[index];
+    }
+
+    /**
+     * Gets the type of a brick.
+     *
+     * @param index The index of the brick.
+     * @return The brick's type.
+     */
+    public byte getType(int index) {
+        return type[index];
+    }
+
+    /**
+     * Creates a view of one brick in this field.
+     *
+     * @param index The index of the brick.
+     * @return A {@link Brick} backed by this field.
+     */
+    public Brick brick(int index) {
+        return new Brick(this, index);
+    }
+}
@@ -0,0 +1,185 @@
+package game;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * An image of one rectangular area of the board, the background with every standing
+ * brick in that area drawn on it. The image is drawn in full once, and after that
+ * only patched where bricks have come or gone. Destroyed bricks are patched one at
+ * a time as they are reported, at a cost that does not depend on how many bricks
+ * the area holds. After a restart or restore, which the field does not report
+ * brick by brick, the whole area is compared against the layer's own record of
+ * which bricks it drew.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class BrickLayer {
+    /** The bricks drawn on the layer. */
+    private final BrickField bricks;
+
+    /** The field indices of the bricks overlapping the layer's area, in increasing order. */
+    private final int[] indices;
+
+    /** The x-coordinate of the layer's area on the board. */
+    private final int originX;
+
+    /** The y-coordinate of the layer's area on the board. */
+    private final int originY;
+
+    /** The image holding the background and the bricks. */
+    private final BufferedImage image;
+
+    /** Draws onto {@link #image} in board coordinates; kept open for the life of the layer. */
+    private final Graphics2D graphics;
+
+    /** A reusable view for drawing one brick at a time. */
+    private final Brick brickView;
+
+    /** Batches brick draws by color. */
+    private final RenderQueue queue = new RenderQueue();
+
+    /** One bit per entry of {@link #indices}, set if that brick was standing when the image was last brought up to date. */
+    private final long[] drawn;
+
+    /**
+     * Constructs a layer over an area of the board and draws it in full.
+     *
+     * @param bricks  The field holding the bricks.
+     * @param indices The indices of the bricks overlapping the area, standing or not; sorted in place.
+     * @param originX The x-coordinate of the area on the board.
+     * @param originY The y-coordinate of the area on the board.
+     * @param width   The width of the area.
+     * @param height  The height of the area.
+     * @return void This constructor does not return a value.
+     */
+    public BrickLayer(BrickField bricks, int[] indices, int originX, int originY, int width, int height) {
+        this.bricks = bricks;
+        this.indices = indices;
+        Arrays.sort(indices);
+        this.originX = originX;
+        this.originY = originY;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.graphics = image.createGraphics();
+        this.graphics.translate(-originX, -originY);
+        this.brickView = bricks.brick(0);
+        this.drawn = new long[(indices.length + 63) >>> 6];
+        redraw();
+    }
+
+    /**
+     * Gets the image holding the background and the bricks.
+     *
+     * @return The layer's image.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Gets the x-coordinate of the layer's area on the board.
+     *
+     * @return The left edge of the area.
+     */
+    public int getOriginX() {
+        return originX;
+    }
+
+    /**
+     * Gets the y-coordinate of the layer's area on the board.
+     *
+     * @return The top edge of the area.
+     */
+    public int getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Brings the image up to date with the field by comparing every brick of the
+     * area, redrawing those that appeared or disappeared since the last update.
+     * Meant for after a restart or restore; destroyed bricks are cheaper to
+     * {@link #patch} one by one.
+     *
+     * @param region Receives the board area of every brick that was redrawn.
+     * @return void This method does not return a value.
+     */
+    public void update(DirtyRegion region) {
+        for (int k = 0; k < indices.length; k++) {
+            redrawIfChanged(k, region);
+        }
+        queue.flush(graphics);
+    }
+
+    /**
+     * Redraws one brick if it appeared or disappeared since the layer last drew it.
+     * The drawing is queued until {@link #flush()}.
+     *
+     * @param index  The field index of the brick; ignored if it is not in the layer's area.
+     * @param region Receives the board area of the brick if it was redrawn.
+     * @return void This method does not return a value.
+     */
+    public void patch(int index, DirtyRegion region) {
+        int k = Arrays.binarySearch(indices, index);
+        if (k >= 0) {
+            redrawIfChanged(k, region);
+        }
+    }
+
+    /**
+     * Draws the bricks queued by {@link #patch}.
+     *
+     * @return void This method does not return a value.
+     */
+    public void flush() {
+        queue.flush(graphics);
+    }
+
+    /**
+     * Queues a brick to be redrawn if the field no longer matches what was drawn.
+     *
+     * @param k      The position of the brick in {@link #indices}.
+     * @param region Receives the board area of the brick if it was redrawn.
+     * @return void This method does not return a value.
+     */
+    private void redrawIfChanged(int k, DirtyRegion region) {
+        int i = indices[k];
+        long bit = 1L << k;
+        boolean alive = bricks.isAlive(i);
+        if (alive == ((drawn[k >>> 6] & bit) != 0)) {
+            return;
+        }
+        drawn[k >>> 6] ^= bit;
+
+        // Clear the brick's outline and fill, then draw it again if it is back
+        int x = bricks.getX(i);
+        int y = bricks.getY(i);
+        int w1 = bricks.getWidth(i) + 1;
+        int h1 = bricks.getHeight(i) + 1;
+        queue.fillRect(Color.BLACK, x, y, w1, h1);
+        brickView.at(i).draw(queue, 0);
+        region.add(x, y, w1, h1);
+    }
+
+    /**
+     * Draws the whole layer again from the field.
+     *
+     * @return void This method does not return a value.
+     */
+    private void redraw() {
+        // Background
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(originX, originY, image.getWidth(), image.getHeight());
+
+        // Bricks still standing
+        for (int k = 0; k < indices.length; k++) {
+            if (bricks.isAlive(indices[k])) {
+                brickView.at(indices[k]).draw(queue, 0);
+                drawn[k >>> 6] |= 1L << k;
+            }
+        }
+        queue.flush(graphics);
+    }
+}
@@ -0,0 +1,229 @@
+package game;
+
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * The bricks of a board larger than the window, drawn as square {@link BrickLayer}
+ * tiles. Only tiles the camera has looked at are drawn, and once more than
+ * {@link #MAX_TILES} are held the least recently shown are dropped, so memory
+ * depends on the area shown rather than on the size of the board. A tile brought
+ * back later is drawn again from the field as it stands then.
+ *
+ * Destroyed bricks are passed in through {@link #brickDestroyed} as they happen and
+ * patched on every held tile they overlap at the next update, so the cost of a
+ * frame follows the number of bricks destroyed, not the number standing. Only when
+ * the field was reset or restored since the last update are the held tiles
+ * compared against it brick by brick.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class BrickTiles {
+    /** The side length of a tile, in pixels. */
+    public static final int TILE_SIZE = 512;
+
+    /** The most tiles held at once; enough for every tile a window can show at a time. */
+    private static final int MAX_TILES = 16;
+
+    /** The bricks drawn on the tiles. */
+    private final BrickField bricks;
+
+    /** Finds the bricks overlapping each tile. */
+    private final ChunkedGrid grid;
+
+    /** The number of columns of tiles. */
+    private final int cols;
+
+    /** The number of rows of tiles. */
+    private final int rows;
+
+    /** The tiles, row by row, or {@code null} where a tile is not held. */
+    private final BrickLayer[] tiles;
+
+    /** The {@link #frame} in which each tile was last shown. */
+    private final long[] lastUsed;
+
+    /** The number of tiles held. */
+    private int held;
+
+    /** Counts calls to {@link #update}. */
+    private long frame;
+
+    /** The bricks destroyed since the last update, to patch on the tiles. */
+    private int[] destroyed = new int[64];
+
+    /** The number of entries in {@link #destroyed}. */
+    private int destroyedCount;
+
+    /** The field's count of unreported changes when the tiles were last brought up to date. */
+    private long seenChanges;
+
+    /**
+     * Constructs the tiles of a world's board, without drawing any yet.
+     *
+     * @param world      The world whose bricks are drawn.
+     * @param viewWidth  The width of the window.
+     * @param viewHeight The height of the window.
+     * @return void This constructor does not return a value.
+     */
+    public BrickTiles(World world, int viewWidth, int viewHeight) {
+        this.bricks = world.getBricks();
+        this.grid = world.getGrid();
+        this.cols = (Math.max(world.getWidth(), viewWidth) + TILE_SIZE - 1) / TILE_SIZE;
+        this.rows = (Math.max(world.getHeight(), viewHeight) + TILE_SIZE - 1) / TILE_SIZE;
+        this.tiles = new BrickLayer[cols * rows];
+        this.lastUsed = new long[cols * rows];
+        this.seenChanges = bricks.getUnreportedChanges();
+    }
+
+    /**
+     * Notes that a brick was destroyed, to patch it on the tiles at the next update.
+     * Meant to be called from the field's destroy listener.
+     *
+     * @param index The index of the brick.
+     * @return void This method does not return a value.
+     */
+    public void brickDestroyed(int index) {
+        if (destroyedCount == destroyed.length) {
+            destroyed = Arrays.copyOf(destroyed, destroyedCount * 2);
+        }
+        destroyed[destroyedCount++] = index;
+    }
+
+    /**
+     * Brings the tiles in view up to date with the field, drawing any that are not held.
+     *
+     * @param cameraX    The board x-coordinate of the window's left edge.
+     * @param cameraY    The board y-coordinate of the window's top edge.
+     * @param viewWidth  The width of the window.
+     * @param viewHeight The height of the window.
+     * @param region     Receives the board area of every brick that was redrawn.
+     * @return void This method does not return a value.
+     */
+    public void update(int cameraX, int cameraY, int viewWidth, int viewHeight, DirtyRegion region) {
+        frame++;
+        if (bricks.getUnreportedChanges() != seenChanges) {
+            // Bricks came back without being reported; compare every held tile with the field
+            seenChanges = bricks.getUnreportedChanges();
+            destroyedCount = 0;
+            for (BrickLayer tile : tiles) {
+                if (tile != null) {
+                    tile.update(region);
+                }
+            }
+        } else if (destroyedCount > 0) {
+            patchDestroyed(region);
+        }
+
+        for (int ty = cameraY / TILE_SIZE; ty <= lastRow(cameraY, viewHeight); ty++) {
+            for (int tx = cameraX / TILE_SIZE; tx <= lastCol(cameraX, viewWidth); tx++) {
+                int t = ty * cols + tx;
+                if (tiles[t] == null) {
+                    load(tx, ty);
+                }
+                lastUsed[t] = frame;
+            }
+        }
+    }
+
+    /**
+     * Patches every brick destroyed since the last update on each held tile it overlaps.
+     *
+     * @param region Receives the board area of every brick that was redrawn.
+     * @return void This method does not return a value.
+     */
+    private void patchDestroyed(DirtyRegion region) {
+        for (int d = 0; d < destroyedCount; d++) {
+            int i = destroyed[d];
+            int x = bricks.getX(i);
+            int y = bricks.getY(i);
+            int lastTx = Math.min(cols - 1, (x + bricks.getWidth(i)) / TILE_SIZE);
+            int lastTy = Math.min(rows - 1, (y + bricks.getHeight(i)) / TILE_SIZE);
+            for (int ty = Math.max(0, y / TILE_SIZE); ty <= lastTy; ty++) {
+                for (int tx = Math.max(0, x / TILE_SIZE); tx <= lastTx; tx++) {
+                    BrickLayer tile = tiles[ty * cols + tx];
+                    if (tile != null) {
+                        tile.patch(i, region);
+                    }
+                }
+            }
+        }
+        destroyedCount = 0;
+        for (BrickLayer tile : tiles) {
+            if (tile != null) {
+                tile.flush();
+            }
+        }
+    }
+
+    /**
+     * Copies the dirty parts of the window from the tiles in view.
+     *
+     * @param target     The graphics of the window image to copy onto.
+     * @param dirty      The parts of the window to copy.
+     * @param cameraX    The board x-coordinate of the window's left edge.
+     * @param cameraY    The board y-coordinate of the window's top edge.
+     * @param viewWidth  The width of the window.
+     * @param viewHeight The height of the window.
+     * @return void This method does not return a value.
+     */
+    public void copy(Graphics target, DirtyRegion dirty, int cameraX, int cameraY, int viewWidth, int viewHeight) {
+        for (int ty = cameraY / TILE_SIZE; ty <= lastRow(cameraY, viewHeight); ty++) {
+            for (int tx = cameraX / TILE_SIZE; tx <= lastCol(cameraX, viewWidth); tx++) {
+                BrickLayer tile = tiles[ty * cols + tx];
+                dirty.copy(target, tile.getImage(), tile.getOriginX() - cameraX, tile.getOriginY() - cameraY,
+                        TILE_SIZE, TILE_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Draws a tile, first dropping the least recently shown tile if too many are held.
+     *
+     * @param tx The column of the tile.
+     * @param ty The row of the tile.
+     * @return void This method does not return a value.
+     */
+    private void load(int tx, int ty) {
+        if (held == MAX_TILES) {
+            int oldest = -1;
+            for (int t = 0; t < tiles.length; t++) {
+                if (tiles[t] != null && lastUsed[t] < frame && (oldest < 0 || lastUsed[t] < lastUsed[oldest])) {
+                    oldest = t;
+                }
+            }
+            if (oldest >= 0) {
+                tiles[oldest] = null;
+                held--;
+            }
+        }
+        int x = tx * TILE_SIZE;
+        int y = ty * TILE_SIZE;
+        tiles[ty * cols + tx] = new BrickLayer(bricks,
+                grid.bricksIn(x, y, x + TILE_SIZE, y + TILE_SIZE), x, y, TILE_SIZE, TILE_SIZE);
+        held++;
+    }
+
+    /**
+     * Finds the last tile column the window shows.
+     *
+     * @param cameraX   The board x-coordinate of the window's left edge.
+     * @param viewWidth The width of the window.
+     * @return The column index.
+     */
+    private int lastCol(int cameraX, int viewWidth) {
+        return Math.min(cols - 1, (cameraX + viewWidth - 1) / TILE_SIZE);
+    }
+
+    /**
+     * Finds the last tile row the window shows.
+     *
+     * @param cameraY    The board y-coordinate of the window's top edge.
+     * @param viewHeight The height of the window.
+     * @return The row index.
+     */
+    private int lastRow(int cameraY, int viewHeight) {
+        return Math.min(rows - 1, (cameraY + viewHeight - 1) / TILE_SIZE);
+    }
+}
@@ -0,0 +1,395 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The broad phase for boards much larger than the window. The board is split into
+ * square chunks, and each chunk gets its own {@link SpatialGrid}, built the first
+ * time something comes near the chunk and dropped again, least recently used first,
+ * once the grids together outgrow a memory budget. Grids for far-away parts of the
+ * board therefore cost nothing, and how much memory and time the broad phase takes
+ * depends on the area in play rather than on the size of the board.
+ *
+ * Every brick belongs to the chunk holding its top-left corner, so each brick is
+ * listed in exactly one chunk. That list is the only part kept for the whole
+ * board: one {@code int} per brick. The bricks themselves stay in the
+ * {@link BrickField}.
+ *
+ * Chunks are brought in with {@link #activate} and let go with {@link #trim}, which
+ * must not run while other threads query the grid. {@link World} does both on the
+ * ticking thread before the balls move, around every ball and around the camera.
+ * {@link #query} only reads. A chunk that was not activated is searched brick by
+ * brick rather than built, which finds the same bricks, possibly in another order.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class ChunkedGrid {
+    /** The default side length of a chunk, in pixels. */
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+
+    /** The default memory budget for chunk grids, in bytes. */
+    public static final long DEFAULT_BUDGET = 64L << 20;
+
+    /** The bricks indexed by this grid. */
+    private final BrickField bricks;
+
+    /** The side length of a chunk, in pixels. */
+    private final int chunkSize;
+
+    /** The x-coordinate of the left edge of the first chunk column. */
+    private final int originX;
+
+    /** The y-coordinate of the top edge of the first chunk row. */
+    private final int originY;
+
+    /** The number of columns of chunks. */
+    private final int cols;
+
+    /** The number of rows of chunks. */
+    private final int rows;
+
+    /** The width of the widest brick, which is how far a brick can reach into the next chunk. */
+    private final int maxBrickWidth;
+
+    /** The height of the tallest brick. */
+    private final int maxBrickHeight;
+
+    /** Where each chunk's run of brick indices starts in {@link #chunkBricks}; one extra entry ends the last run. */
+    private final int[] chunkStart;
+
+    /** The brick indices of all chunks, back to back in row-major chunk order. */
+    private final int[] chunkBricks;
+
+    /** The grid of each chunk, or {@code null} while the chunk is not loaded. */
+    private final SpatialGrid[] grids;
+
+    /** The {@link #epoch} in which each chunk was last activated. */
+    private final long[] lastUsed;
+
+    /** The chunks whose grids are loaded. */
+    private int[] resident = new int[16];
+
+    /** The number of entries in {@link #resident}. */
+    private int residentCount;
+
+    /** The memory held by the loaded grids, in bytes. */
+    private long residentBytes;
+
+    /** The most memory the loaded grids may hold once {@link #trim()} has run, in bytes. */
+    private long budget;
+
+    /** Counts calls to {@link #beginTick()}. */
+    private long epoch;
+
+    /** The number of chunk grids built so far. */
+    private long loads;
+
+    /** The number of chunk grids dropped so far. */
+    private long evictions;
+
+    /**
+     * Constructs a grid over the given bricks with the default chunk size and budget.
+     *
+     * @param bricks The bricks to index.
+     * @return void This constructor does not return a value.
+     */
+    public ChunkedGrid(BrickField bricks) {
+        this(bricks, DEFAULT_CHUNK_SIZE, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Constructs a grid over the given bricks. No chunk grid is built until it is activated.
+     *
+     * @param bricks    The bricks to index.
+     * @param chunkSize The side length of a chunk, in pixels.
+     * @param budget    The most memory the chunk grids may hold, in bytes.
+     * @return void This constructor does not return a value.
+     */
+    public ChunkedGrid(BrickField bricks, int chunkSize, long budget) {
+        this.bricks = bricks;
+        this.chunkSize = chunkSize;
+        this.budget = budget;
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int widest = 0;
+        int tallest = 0;
+        for (int i = 0; i < bricks.size(); i++) {
+            minX = Math.min(minX, bricks.getX(i));
+            minY = Math.min(minY, bricks.getY(i));
+            maxX = Math.max(maxX, bricks.getX(i));
+            maxY = Math.max(maxY, bricks.getY(i));
+            widest = Math.max(widest, bricks.getWidth(i));
+            tallest = Math.max(tallest, bricks.getHeight(i));
+        }
+        if (bricks.size() == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        originX = minX;
+        originY = minY;
+        cols = (maxX - minX) / chunkSize + 1;
+        rows = (maxY - minY) / chunkSize + 1;
+        maxBrickWidth = widest;
+        maxBrickHeight = tallest;
+
+        // Count the bricks in each chunk, then lay the chunks out back to back
+        chunkStart = new int[cols * rows + 1];
+        for (int i = 0; i < bricks.size(); i++) {
+            chunkStart[chunkOf(i) + 1]++;
+        }
+        for (int c = 1; c < chunkStart.length; c++) {
+            chunkStart[c] += chunkStart[c - 1];
+        }
+        chunkBricks = new int[bricks.size()];
+        int[] fill = Arrays.copyOf(chunkStart, cols * rows);
+        for (int i = 0; i < bricks.size(); i++) {
+            chunkBricks[fill[chunkOf(i)]++] = i;
+        }
+
+        grids = new SpatialGrid[cols * rows];
+        lastUsed = new long[cols * rows];
+    }
+
+    /**
+     * Starts a new round of activations. Chunks activated after this call are kept by
+     * the next {@link #trim()} even if that means going over budget.
+     *
+     * @return void This method does not return a value.
+     */
+    public void beginTick() {
+        epoch++;
+    }
+
+    /**
+     * Makes sure the grids of every chunk whose bricks may overlap the given box are
+     * loaded, building any that are missing.
+     *
+     * @param minX The left edge of the box.
+     * @param minY The top edge of the box.
+     * @param maxX The right edge of the box.
+     * @param maxY The bottom edge of the box.
+     * @return void This method does not return a value.
+     */
+    public void activate(int minX, int minY, int maxX, int maxY) {
+        int lastCol = col(maxX);
+        int lastRow = row(maxY);
+        for (int cy = row(minY - maxBrickHeight); cy <= lastRow; cy++) {
+            for (int cx = col(minX - maxBrickWidth); cx <= lastCol; cx++) {
+                int chunk = cy * cols + cx;
+                lastUsed[chunk] = epoch;
+                if (grids[chunk] == null && chunkStart[chunk + 1] > chunkStart[chunk]) {
+                    load(chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the least recently activated chunk grids until the rest fit the budget.
+     * Chunks activated since the last {@link #beginTick()} are never dropped.
+     *
+     * @return void This method does not return a value.
+     */
+    public void trim() {
+        while (residentBytes > budget) {
+            int oldest = -1;
+            for (int k = 0; k < residentCount; k++) {
+                if (oldest < 0 || lastUsed[resident[k]] < lastUsed[resident[oldest]]) {
+                    oldest = k;
+                }
+            }
+            if (oldest < 0 || lastUsed[resident[oldest]] == epoch) {
+                return;
+            }
+            int chunk = resident[oldest];
+            residentBytes -= grids[chunk].memoryBytes();
+            grids[chunk] = null;
+            resident[oldest] = resident[--residentCount];
+            evictions++;
+        }
+    }
+
+    /**
+     * Finds the bricks that have not been hit and whose bounds overlap the given box.
+     * Each brick is reported once.
+     *
+     * @param minX The left edge of the box.
+     * @param minY The top edge of the box.
+     * @param maxX The right edge of the box.
+     * @param maxY The bottom edge of the box.
+     * @param out  Receives the field indices of the matching bricks, as many as fit.
+     * @return The number of matching bricks; if more than {@code out} holds, query again with a larger array.
+     */
+    public int query(int minX, int minY, int maxX, int maxY, int[] out) {
+        int lastCol = col(maxX);
+        int lastRow = row(maxY);
+        int found = 0;
+        for (int cy = row(minY - maxBrickHeight); cy <= lastRow; cy++) {
+            for (int cx = col(minX - maxBrickWidth); cx <= lastCol; cx++) {
+                int chunk = cy * cols + cx;
+                SpatialGrid grid = grids[chunk];
+                if (grid != null) {
+                    found = grid.query(minX, minY, maxX, maxY, out, found);
+                    continue;
+                }
+
+                // Not loaded: look at each of the chunk's bricks
+                for (int k = chunkStart[chunk]; k < chunkStart[chunk + 1]; k++) {
+                    int i = chunkBricks[k];
+                    if (bricks.isAlive(i) && overlaps(i, minX, minY, maxX, maxY)) {
+                        if (found < out.length) {
+                            out[found] = i;
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Lists every brick, standing or not, whose bounds overlap the given box.
+     *
+     * @param minX The left edge of the box.
+     * @param minY The top edge of the box.
+     * @param maxX The right edge of the box.
+     * @param maxY The bottom edge of the box.
+     * @return The field indices of the bricks, in increasing order within each chunk.
+     */
+    public int[] bricksIn(int minX, int minY, int maxX, int maxY) {
+        int[] out = new int[16];
+        int found = 0;
+        int lastCol = col(maxX);
+        int lastRow = row(maxY);
+        for (int cy = row(minY - maxBrickHeight); cy <= lastRow; cy++) {
+            for (int cx = col(minX - maxBrickWidth); cx <= lastCol; cx++) {
+                int chunk = cy * cols + cx;
+                for (int k = chunkStart[chunk]; k < chunkStart[chunk + 1]; k++) {
+                    int i = chunkBricks[k];
+                    if (overlaps(i, minX, minY, maxX, maxY)) {
+                        if (found == out.length) {
+                            out = Arrays.copyOf(out, found * 2);
+                        }
+                        out[found++] = i;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(out, found);
+    }
+
+    /**
+     * Sets the most memory the chunk grids may hold.
+     *
+     * @param inBudget The budget in bytes.
+     * @return void This method does not return a value.
+     */
+    public void setBudget(long inBudget) {
+        budget = inBudget;
+    }
+
+    /**
+     * Gets the number of chunks whose grids are loaded.
+     *
+     * @return The number of loaded chunks.
+     */
+    public int getResidentChunks() {
+        return residentCount;
+    }
+
+    /**
+     * Gets the memory held by the loaded chunk grids.
+     *
+     * @return The size of the loaded grids in bytes.
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Gets the number of chunk grids built so far.
+     *
+     * @return The number of loads.
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    /**
+     * Gets the number of chunk grids dropped so far to stay within budget.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Builds the grid of a chunk.
+     *
+     * @param chunk The chunk to load.
+     * @return void This method does not return a value.
+     */
+    private void load(int chunk) {
+        int from = chunkStart[chunk];
+        SpatialGrid grid = new SpatialGrid(bricks,
+                Arrays.copyOfRange(chunkBricks, from, chunkStart[chunk + 1]), chunkStart[chunk + 1] - from);
+        grids[chunk] = grid;
+        residentBytes += grid.memoryBytes();
+        if (residentCount == resident.length) {
+            resident = Arrays.copyOf(resident, residentCount * 2);
+        }
+        resident[residentCount++] = chunk;
+        loads++;
+    }
+
+    /**
+     * Checks whether a brick's bounds overlap a box.
+     *
+     * @param i    The index of the brick.
+     * @param minX The left edge of the box.
+     * @param minY The top edge of the box.
+     * @param maxX The right edge of the box.
+     * @param maxY The bottom edge of the box.
+     * @return {@code true} if they overlap, otherwise {@code false}.
+     */
+    private boolean overlaps(int i, int minX, int minY, int maxX, int maxY) {
+        int bx = bricks.getX(i);
+        int by = bricks.getY(i);
+        return bx <= maxX && bx + bricks.getWidth(i) >= minX && by <= maxY && by + bricks.getHeight(i) >= minY;
+    }
+
+    /**
+     * Finds the chunk that holds a brick's top-left corner.
+     *
+     * @param i The index of the brick.
+     * @return The index of the chunk.
+     */
+    private int chunkOf(int i) {
+        return row(bricks.getY(i)) * cols + col(bricks.getX(i));
+    }
+
+    /**
+     * Finds the chunk column containing the given x-coordinate, clamped to the board.
+     *
+     * @param x The x-coordinate.
+     * @return The column index.
+     */
+    private int col(int x) {
+        return Math.min(cols - 1, Math.max(0, Math.floorDiv(x - originX, chunkSize)));
+    }
+
+    /**
+     * Finds the chunk row containing the given y-coordinate, clamped to the board.
+     *
+     * @param y The y-coordinate.
+     * @return The row index.
+     */
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, Math.floorDiv(y - originY, chunkSize)));
+    }
+}
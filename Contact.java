@@ -0,0 +1,78 @@
+package game;
+
+/**
+ * Describes the earliest collision found while sweeping a moving shape,
+ * as filled in by {@link Sweep}, or the overlap found by a {@link Polygon} test.
+ * A single instance is reused across tests, each sweep only overwriting it
+ * when it finds an earlier contact.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Contact {
+    /** Nothing was hit. */
+    public static final int NONE = 0;
+
+    /** One of the walls of the playing field was hit. */
+    public static final int WALL = 1;
+
+    /** A paddle was hit; {@link #index} holds its player index in the world. */
+    public static final int PADDLE = 2;
+
+    /** A brick was hit; {@link #index} holds its index in the field. */
+    public static final int BRICK = 3;
+
+    /** A polygon obstacle was hit; {@link #index} holds its index in the world. */
+    public static final int OBSTACLE = 4;
+
+    /** What was hit, one of {@link #NONE}, {@link #WALL}, {@link #PADDLE}, {@link #BRICK} or {@link #OBSTACLE}. */
+    public int kind;
+
+    /** The index of the paddle, brick or obstacle that was hit, or {@code -1}. */
+    public int index;
+
+    /** When the contact happens, as a fraction of the tick. */
+    public double time;
+
+    /** The x-component of the unit surface normal at the contact, pointing towards the moving shape. */
+    public double normalX;
+
+    /** The y-component of the unit surface normal at the contact, pointing towards the moving shape. */
+    public double normalY;
+
+    /** How far the shapes overlap along the normal, for overlap tests that report it. */
+    public double depth;
+
+    /**
+     * Clears the contact so that only hits before the given time are accepted.
+     *
+     * @param maxTime The latest time a contact may happen.
+     * @return void This method does not return a value.
+     */
+    public void reset(double maxTime) {
+        kind = NONE;
+        index = -1;
+        time = maxTime;
+        normalX = 0;
+        normalY = 0;
+        depth = 0;
+    }
+
+    /**
+     * Records a contact.
+     *
+     * @param inKind    What was hit.
+     * @param inIndex   The index of the brick that was hit, or {@code -1}.
+     * @param inTime    When the contact happens, as a fraction of the tick.
+     * @param inNormalX The x-component of the surface normal.
+     * @param inNormalY The y-component of the surface normal.
+     * @return void This method does not return a value.
+     */
+    public void set(int inKind, int inIndex, double inTime, double inNormalX, double inNormalY) {
+        kind = inKind;
+        index = inIndex;
+        time = inTime;
+        normalX = inNormalX;
+        normalY = inNormalY;
+    }
+}
@@ -0,0 +1,323 @@
+package game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that the simulation is deterministic, which replays, snapshots and
+ * networked play all rely on. Each trial plays pseudo-random input, for random
+ * stretches either holding a key or following the ball so that rounds last. It
+ * restarts whenever a round ends, and now and then in the middle of one. It then compares the outcome against a world that
+ * should have ended up the same.
+ *
+ * The replay trials record a session, write the replay to bytes and read it back,
+ * then play it twice and check that both playbacks end with the recorded score
+ * and {@link World#checksum()}.
+ *
+ * The snapshot trials play a board of a thousand small bricks with several balls
+ * for a short while, then capture a {@link Snapshot}. Half of them first break bricks
+ * scattered all over the board, so that the bricks are stored as a bitmap rather
+ * than as runs. The snapshot is sent through bytes and restored into a fresh world,
+ * which must have the same checksum and capture to the same bytes. Both worlds then
+ * play the same input on, and the first is restored in place and played again;
+ * all three must end with the same checksum.
+ *
+ * The rollback trials play a match of two to four players through {@link Rollback}
+ * as the first player. Each remote player's input arrives a random number of
+ * frames late, at times more than a whole window so that the layer has to wait for
+ * it. Predictions are often wrong, and the world is rolled back and played again. A reference world is played alongside with
+ * every input as it was made; once all input has arrived, both must have the
+ * same checksum.
+ *
+ * Run with {@code java -Djava.awt.headless=true game.DeterminismCheck [--trials=n] [--seed=n]};
+ * the default is 20 trials from seed 1. The exit status is {@code 1} if any trial fails.
+ *
+ * @author Team
+ * @version 1.0
+ */
+public class DeterminismCheck {
+    /** The longest stretch a key is held, in ticks. */
+    private static final int MAX_HOLD = 60;
+
+    /** The chance per tick of asking for a restart. */
+    private static final double RESTART_CHANCE = 1 / 3000.0;
+
+    /** The most players in a rollback trial. */
+    private static final int MAX_PLAYERS = 4;
+
+    /** How many frames late remote input may arrive in a rollback trial. */
+    private static final int WINDOW = 16;
+
+    /** The balls kept in play before a snapshot is captured. */
+    private static final int BALLS = 4;
+
+    /** The number of trials of each kind. */
+    private int trials = 20;
+
+    /** Seeds the first trial; each later trial uses the next seed. */
+    private long seed = 1;
+
+    /** The trials run. */
+    private int checks;
+
+    /** The trials that failed. */
+    private int failures;
+
+    /** Each player's input for their current stretch, or a negative number to follow the ball. */
+    private final int[] held = new int[MAX_PLAYERS];
+
+    /** The ticks left in each player's current stretch. */
+    private final int[] left = new int[MAX_PLAYERS];
+
+    /**
+     * Runs every check as set by the command line.
+     *
+     * @param args {@code --trials=} and {@code --seed=} options.
+     * @throws IOException If a replay cannot be written or read back.
+     * @return void This method does not return a value.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        DeterminismCheck check = new DeterminismCheck();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--trials=")) {
+                check.trials = Integer.parseInt(value);
+            } else if (arg.startsWith("--seed=")) {
+                check.seed = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        for (int t = 0; t < check.trials; t++) {
+            check.checkReplay(check.seed + t);
+        }
+        for (int t = 0; t < check.trials; t++) {
+            check.checkSnapshot(check.seed + t, t % 2 == 1);
+        }
+        for (int t = 0; t < check.trials; t++) {
+            check.checkRollback(check.seed + t);
+        }
+        System.out.printf("%d checks, %d failed%n", check.checks, check.failures);
+        if (check.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Records a session, sends the replay through its file format and plays it back twice.
+     *
+     * @param trialSeed Seeds the session's input.
+     * @throws IOException If the replay cannot be written or read back.
+     * @return void This method does not return a value.
+     */
+    private void checkReplay(long trialSeed) throws IOException {
+        SplittableRandom random = new SplittableRandom(trialSeed);
+        int ticks = 2_000 + random.nextInt(8_000);
+        World world = new World(800, 600);
+        Replay replay = new Replay(world.getWidth(), world.getHeight());
+        Arrays.fill(left, 0);
+        for (int t = 0; t < ticks; t++) {
+            int input = nextInput(random, world, 0);
+            replay.record(input);
+            world.tick(input);
+        }
+        replay.finish(world);
+
+        // Through the file format and back
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        replay.write(bytes);
+        Replay read = Replay.read(new ByteArrayInputStream(bytes.toByteArray()));
+        World first = read.play();
+        World second = read.play();
+        report("replay", trialSeed, read.matches(first) && read.matches(second) && first.getTick() == world.getTick(),
+                String.format("ticks=%d score=%d", ticks, world.getScore()));
+    }
+
+    /**
+     * Captures a world part way through a session, restores the snapshot into a fresh
+     * world and into the same world, and plays each of them on with the same input.
+     *
+     * @param trialSeed Seeds the session's input.
+     * @param scatter   Whether to break bricks all over the board before capturing, so
+     *                  that they are stored as a bitmap.
+     * @return void This method does not return a value.
+     */
+    private void checkSnapshot(long trialSeed, boolean scatter) {
+        SplittableRandom random = new SplittableRandom(trialSeed);
+        World world = snapshotBoard();
+        Arrays.fill(left, 0);
+        int before = 200 + random.nextInt(600);
+        for (int t = 0; t < before; t++) {
+            for (int b = world.getBalls().size(); b < BALLS && world.getState() == World.State.RUNNING; b++) {
+                world.spawnBall(100 + b * 150, 400, b % 2 == 0 ? 5 : -5, -6);
+            }
+            world.tick(nextInput(random, world, 0));
+        }
+        if (scatter) {
+            BrickField bricks = world.getBricks();
+            for (int i = 0; i < bricks.size(); i++) {
+                if (random.nextBoolean()) {
+                    bricks.destroy(i);
+                }
+            }
+        }
+
+        // Through bytes into a fresh world
+        boolean bitmap = takesBitmap(world.getBricks());
+        Snapshot snapshot = Snapshot.capture(world);
+        byte[] bytes = snapshot.toByteArray();
+        World copy = snapshotBoard();
+        Snapshot.fromByteArray(bytes).restoreTo(copy);
+        boolean passed = copy.checksum() == world.checksum()
+                && Arrays.equals(Snapshot.capture(copy).toByteArray(), bytes);
+
+        // Play all three on with the same input
+        int after = 500 + random.nextInt(2_000);
+        int[] inputs = new int[after];
+        for (int t = 0; t < after; t++) {
+            inputs[t] = nextInput(random, world, 0);
+            world.tick(inputs[t]);
+            copy.tick(inputs[t]);
+        }
+        long expected = world.checksum();
+        snapshot.restoreTo(world);
+        for (int input : inputs) {
+            world.tick(input);
+        }
+        passed &= copy.checksum() == expected && world.checksum() == expected;
+
+        // The scattered board must have been stored as a bitmap, the played one as runs
+        passed &= scatter == bitmap;
+        report(scatter ? "bitmap" : "runs", trialSeed, passed,
+                String.format("ticks=%d+%d bytes=%d", before, after, bytes.length));
+    }
+
+    /**
+     * Plays a match through a rollback layer with remote input arriving late, next to
+     * a reference world that gets every input at once, and compares the two at the end.
+     *
+     * @param trialSeed Seeds the match's input and delays.
+     * @return void This method does not return a value.
+     */
+    private void checkRollback(long trialSeed) {
+        SplittableRandom random = new SplittableRandom(trialSeed);
+        int players = 2 + random.nextInt(MAX_PLAYERS - 1);
+        int frames = 2_000 + random.nextInt(2_000);
+        World reference = new World(800, 600, BrickField.grid(10, 5, 75, 20, 5), players);
+        World world = new World(800, 600, BrickField.grid(10, 5, 75, 20, 5), players);
+        Rollback rollback = new Rollback(world, 0, WINDOW);
+        int[][] inputs = new int[frames + 1][players];
+        long[] sent = new long[players];
+        Arrays.fill(left, 0);
+        for (int f = 0; f < frames; f++) {
+            for (int p = 0; p < players; p++) {
+                inputs[f][p] = nextInput(random, reference, p);
+            }
+            reference.tick(inputs[f]);
+
+            // Hand over each remote player's input up to a random delay
+            for (int p = 1; p < players; p++) {
+                long upTo = f - random.nextInt(WINDOW + WINDOW / 4);
+                for (; sent[p] <= upTo; sent[p]++) {
+                    rollback.addRemoteInput(p, sent[p], inputs[(int) sent[p]][p]);
+                }
+            }
+            // Wait for any player a whole window behind
+            while (!rollback.canAdvance()) {
+                for (int p = 1; p < players; p++) {
+                    if (sent[p] == rollback.getConfirmedFrame() + 1) {
+                        rollback.addRemoteInput(p, sent[p], inputs[(int) sent[p]][p]);
+                        sent[p]++;
+                    }
+                }
+            }
+            rollback.advance(inputs[f][0]);
+        }
+
+        // Hand over the rest, and play one idle frame so the last correction is made
+        for (int p = 1; p < players; p++) {
+            for (; sent[p] <= frames; sent[p]++) {
+                rollback.addRemoteInput(p, sent[p], inputs[(int) sent[p]][p]);
+            }
+        }
+        reference.tick(inputs[frames]);
+        rollback.advance(inputs[frames][0]);
+        report("rollback", trialSeed, world.checksum() == reference.checksum() && rollback.getRollbacks() > 0,
+                String.format("players=%d frames=%d rollbacks=%d resimulated=%d", players, frames,
+                        rollback.getRollbacks(), rollback.getResimulatedTicks()));
+    }
+
+    /**
+     * Tells whether a snapshot stores a field's bricks as a bitmap: whether its runs
+     * of standing and destroyed bricks take more bytes than one bit per brick.
+     *
+     * @param bricks The field.
+     * @return {@code true} if the bitmap is smaller, otherwise {@code false}.
+     */
+    private static boolean takesBitmap(BrickField bricks) {
+        int runBytes = 0;
+        boolean standing = true;
+        for (int i = 0; i < bricks.size(); standing = !standing) {
+            int next = i;
+            while (next < bricks.size() && bricks.isAlive(next) == standing) {
+                next++;
+            }
+            runBytes += Math.max(1, (64 - Long.numberOfLeadingZeros(next - i) + 6) / 7);
+            i = next;
+        }
+        return runBytes > (bricks.size() + 7) / 8;
+    }
+
+    /**
+     * Builds the board the snapshot trials play: 40 by 25 bricks of 15 by 4 pixels.
+     *
+     * @return A new world on the board.
+     */
+    private static World snapshotBoard() {
+        return new World(800, 600, BrickField.grid(40, 25, 15, 4, 5));
+    }
+
+    /**
+     * Makes up a player's input for the next tick of a world, starting a new stretch
+     * when the current one runs out and restarting if the round is over. Following
+     * the ball steers by the first paddle, whichever player's input it is.
+     *
+     * @param random The source of randomness.
+     * @param world  The world about to be ticked.
+     * @param player The index of the player.
+     * @return The input bits.
+     */
+    private int nextInput(SplittableRandom random, World world, int player) {
+        if (left[player]-- == 0) {
+            held[player] = random.nextInt(6) - 3;
+            left[player] = random.nextInt(MAX_HOLD);
+        }
+        if (world.getState() != World.State.RUNNING) {
+            return World.INPUT_RESTART;
+        }
+        int input = held[player] < 0 ? SimulationBenchmark.autopilot(world) : held[player];
+        return input | (random.nextDouble() < RESTART_CHANCE ? World.INPUT_RESTART : 0);
+    }
+
+    /**
+     * Prints the outcome of a trial and counts it if it failed.
+     *
+     * @param kind      The kind of check.
+     * @param trialSeed The trial's seed.
+     * @param passed    Whether the trial passed.
+     * @param detail    What was played, for the report.
+     * @return void This method does not return a value.
+     */
+    private void report(String kind, long trialSeed, boolean passed, String detail) {
+        System.out.printf("%s %-8s seed=%d %s%n", passed ? "OK      " : "MISMATCH", kind, trialSeed, detail);
+        checks++;
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package game;
+
+import java.awt.Graphics;
+import java.awt.Image;
+import java.util.Arrays;
+
+/**
+ * The parts of a frame that have to be redrawn, kept as a list of rectangles clipped
+ * to the frame. Once too many rectangles pile up, or the whole frame is marked, the
+ * region simply covers the whole frame, since redrawing it is then cheaper than
+ * walking the list.
+ *
+ * Rectangles may be added in board coordinates by setting the board position of
+ * the frame's top-left corner with {@link #setOrigin}.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class DirtyRegion {
+    /** The most rectangles tracked before the whole frame is treated as dirty. */
+    private static final int MAX_RECTS = 1024;
+
+    /** The width of the frame. */
+    private final int width;
+
+    /** The height of the frame. */
+    private final int height;
+
+    /** The rectangles, four ints each: x, y, width, height. */
+    private int[] rects = new int[64];
+
+    /** The number of rectangles. */
+    private int count;
+
+    /** Whether the whole frame is dirty. */
+    private boolean full;
+
+    /** The x-coordinate subtracted from every rectangle added. */
+    private int originX;
+
+    /** The y-coordinate subtracted from every rectangle added. */
+    private int originY;
+
+    /**
+     * Constructs an empty region for a frame of the given size.
+     *
+     * @param width  The width of the frame.
+     * @param height The height of the frame.
+     * @return void This constructor does not return a value.
+     */
+    public DirtyRegion(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Sets where the frame's top-left corner lies in the coordinates rectangles are added in.
+     *
+     * @param x The x-coordinate of the frame's top-left corner.
+     * @param y The y-coordinate of the frame's top-left corner.
+     * @return void This method does not return a value.
+     */
+    public void setOrigin(int x, int y) {
+        originX = x;
+        originY = y;
+    }
+
+    /**
+     * Marks a rectangle as dirty. Rectangles are moved by the origin, clipped to the
+     * frame, and ignored if empty.
+     *
+     * @param x The x-coordinate of the rectangle.
+     * @param y The y-coordinate of the rectangle.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     * @return void This method does not return a value.
+     */
+    public void add(int x, int y, int w, int h) {
+        if (full) {
+            return;
+        }
+        x -= originX;
+        y -= originY;
+        int x2 = Math.min(width, x + w);
+        int y2 = Math.min(height, y + h);
+        x = Math.max(0, x);
+        y = Math.max(0, y);
+        if (x >= x2 || y >= y2) {
+            return;
+        }
+        if (count == MAX_RECTS) {
+            markAll();
+            return;
+        }
+        if (count * 4 == rects.length) {
+            rects = Arrays.copyOf(rects, rects.length * 2);
+        }
+        int i = count++ * 4;
+        rects[i] = x;
+        rects[i + 1] = y;
+        rects[i + 2] = x2 - x;
+        rects[i + 3] = y2 - y;
+    }
+
+    /**
+     * Adds every rectangle of another region of the same size to this one, in frame coordinates.
+     *
+     * @param other The region to add.
+     * @return void This method does not return a value.
+     */
+    public void addAll(DirtyRegion other) {
+        if (other.full) {
+            markAll();
+            return;
+        }
+        for (int i = 0; i < other.count * 4 && !full; i += 4) {
+            if (count == MAX_RECTS) {
+                markAll();
+                return;
+            }
+            if (count * 4 == rects.length) {
+                rects = Arrays.copyOf(rects, rects.length * 2);
+            }
+            System.arraycopy(other.rects, i, rects, count++ * 4, 4);
+        }
+    }
+
+    /**
+     * Marks the whole frame as dirty.
+     *
+     * @return void This method does not return a value.
+     */
+    public void markAll() {
+        full = true;
+        count = 0;
+    }
+
+    /**
+     * Empties the region.
+     *
+     * @return void This method does not return a value.
+     */
+    public void clear() {
+        full = false;
+        count = 0;
+    }
+
+    /**
+     * Copies the dirty parts of an image onto a target at the same coordinates.
+     *
+     * @param target The graphics to copy onto.
+     * @param source The image to copy from, the same size as the frame.
+     * @return void This method does not return a value.
+     */
+    public void copy(Graphics target, Image source) {
+        copy(target, source, 0, 0, width, height);
+    }
+
+    /**
+     * Copies the dirty parts of an image placed somewhere on the frame onto a target.
+     *
+     * @param target The graphics to copy onto.
+     * @param source The image to copy from.
+     * @param x      The frame x-coordinate of the image's left edge.
+     * @param y      The frame y-coordinate of the image's top edge.
+     * @param w      The width of the image.
+     * @param h      The height of the image.
+     * @return void This method does not return a value.
+     */
+    public void copy(Graphics target, Image source, int x, int y, int w, int h) {
+        if (full) {
+            target.drawImage(source, x, y, null);
+            return;
+        }
+        for (int i = 0; i < count * 4; i += 4) {
+            int x1 = Math.max(x, rects[i]);
+            int y1 = Math.max(y, rects[i + 1]);
+            int x2 = Math.min(x + w, rects[i] + rects[i + 2]);
+            int y2 = Math.min(y + h, rects[i + 1] + rects[i + 3]);
+            if (x1 < x2 && y1 < y2) {
+                target.drawImage(source, x1, y1, x2, y2, x1 - x, y1 - y, x2 - x, y2 - y, null);
+            }
+        }
+    }
+}
@@ -2,20 +2,42 @@ package game;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * An abstract game framework that provides a painted canvas within a window.
- * The game updates every tenth of a second, ensuring smooth rendering.
- * 
+ * The simulation advances on a dedicated thread at a fixed rate of
+ * {@link #TICKS_PER_SECOND}, independently of how fast frames are painted.
+ *
  * This class should be extended by specific game implementations (e.g., {@link YourGameName}).
+ * Subclasses advance their state in {@link #tick()} and draw it in {@link #paint(Graphics)},
+ * using {@link #alpha} to interpolate between the last two ticks.
  * It handles window creation, event management, and buffered rendering for a flicker-free experience.
- * 
+ * Frames are either painted through the AWT repaint queue ({@link RenderMode#PASSIVE}) or
+ * page-flipped directly from the game loop ({@link RenderMode#ACTIVE}).
+ *
+ * Frame and tick times are recorded in {@link #metrics}. F3 toggles an overlay of
+ * them, and setting {@code -Dgame.metrics=<file>} saves them on exit, as JSON if the
+ * file name ends in {@code .json} and as CSV otherwise.
+ *
  * @author Team
  * @version 1.0
  */
 abstract class Game extends Canvas {
+    /** The number of simulation ticks per second. */
+    public static final int TICKS_PER_SECOND = 100;
+
+    /** The duration of one simulation tick in nanoseconds. */
+    protected static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+
+    /** The most ticks run back to back before the loop gives up catching up. */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
     /** Determines if the game is running. */
-    protected boolean on = true;
+    protected volatile boolean on = true;
 
     /** The width of the game window. */
     protected int width;
@@ -23,20 +45,79 @@ abstract class Game extends Canvas {
     /** The height of the game window. */
     protected int height;
 
-    /** The off-screen image buffer for smooth rendering. */
-    protected Image buffer;
+    /** How frames reach the screen. */
+    protected final RenderMode renderMode;
+
+    /** The off-screen image buffer used by passive rendering. */
+    protected VolatileImage buffer;
+
+    /** The page-flipping buffers used by active rendering. */
+    private BufferStrategy strategy;
+
+    /** Guards the simulation state shared by the loop thread and the painter. */
+    protected final Object lock = new Object();
+
+    /**
+     * How far the current frame lies between the previous tick and the latest one,
+     * from {@code 0} to {@code 1}. Only meaningful while painting.
+     */
+    protected double alpha;
+
+    /** The number of simulation ticks run so far. */
+    protected long ticks;
+
+    /** The number of ticks that ran more than one step behind schedule. */
+    protected long lateTicks;
+
+    /** The number of requested frames that were never painted. */
+    protected long droppedFrames;
+
+    /** The number of frames painted so far. */
+    protected long frames;
+
+    /** How long the last frame took to paint and present, in nanoseconds. */
+    protected long frameNanos;
+
+    /** Frame, tick and collision measurements for the session. */
+    protected final Metrics metrics = new Metrics();
+
+    /** Whether the metrics overlay is drawn over each frame. */
+    private volatile boolean showMetrics;
+
+    /** Set while a repaint has been requested but not yet painted. */
+    private volatile boolean framePending;
+
+    /** The thread running the fixed-timestep loop. */
+    private Thread loop;
 
     /**
-     * Constructs a game window with the given name and dimensions.
-     * 
+     * Constructs a passively rendered game window with the given name and dimensions.
+     *
      * @param name     The title of the game window.
      * @param inWidth  The width of the game window.
      * @param inHeight The height of the game window.
      * @return void This constructor does not return a value.
      */
     public Game(String name, int inWidth, int inHeight) {
+        this(name, inWidth, inHeight, RenderMode.PASSIVE);
+    }
+
+    /**
+     * Constructs a game window with the given name, dimensions, and rendering mode.
+     *
+     * @param name       The title of the game window.
+     * @param inWidth    The width of the game window.
+     * @param inHeight   The height of the game window.
+     * @param renderMode How frames reach the screen.
+     * @return void This constructor does not return a value.
+     */
+    public Game(String name, int inWidth, int inHeight, RenderMode renderMode) {
         width = inWidth;
         height = inHeight;
+        this.renderMode = renderMode;
+
+        // Frames are painted by the game loop, not by operating system paint messages
+        setIgnoreRepaint(true);
 
         // Create a window (Frame) for the game
         Frame frame = new Frame(name);
@@ -47,57 +128,214 @@ abstract class Game extends Canvas {
         frame.addWindowListener(new WindowAdapter() {
             /**
              * Closes the game window when the user clicks the close button.
-             * 
+             *
              * @param e The window event triggered by closing the window.
              * @return void This method does not return a value.
              */
             public void windowClosing(WindowEvent e) {
+                on = false;
                 System.exit(0);
             }
         });
 
-        // Create an off-screen buffer for smoother rendering
-        buffer = createImage(width, height);
+        // Toggle the metrics overlay when F3 is pressed
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_F3) {
+                    showMetrics = !showMetrics;
+                }
+            }
+        });
+
+        // Save the metrics on exit when asked to
+        String metricsPath = System.getProperty("game.metrics");
+        if (metricsPath != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    metrics.write(Paths.get(metricsPath));
+                } catch (IOException e) {
+                    System.err.println("Could not save metrics to " + metricsPath + ": " + e.getMessage());
+                }
+            }));
+        }
+
+        // Create the off-screen buffers for smoother rendering
+        if (renderMode == RenderMode.ACTIVE) {
+            createBufferStrategy(3);
+            strategy = getBufferStrategy();
+        } else {
+            buffer = createVolatileImage(width, height);
+        }
     }
 
+    /**
+     * Advances the game by one fixed simulation step of {@link #TICK_NANOS}.
+     * Called on the game loop thread while holding {@link #lock}.
+     *
+     * @return void This method does not return a value.
+     */
+    protected abstract void tick();
+
     /**
      * Paints the game elements onto the canvas.
      * This method must be implemented by subclasses to define game-specific rendering.
-     * 
+     * It must not change the simulation state.
+     *
      * @param brush The graphics context used for rendering.
      * @return void This method does not return a value.
      */
     abstract public void paint(Graphics brush);
 
+    /**
+     * Starts the fixed-timestep game loop on its own thread.
+     *
+     * @return void This method does not return a value.
+     */
+    public void startGameLoop() {
+        loop = new Thread(this::runGameLoop, "game-loop");
+        loop.start();
+    }
+
+    /**
+     * Runs simulation ticks at a fixed rate and requests a frame after each pass.
+     * Elapsed time is accumulated and consumed in whole ticks, catching up after
+     * a slow pass; the remainder becomes the interpolation factor for rendering.
+     *
+     * @return void This method does not return a value.
+     */
+    private void runGameLoop() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        while (on) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+
+            int steps = 0;
+            synchronized (lock) {
+                while (accumulator >= TICK_NANOS && steps < MAX_CATCH_UP_TICKS) {
+                    long tickStart = System.nanoTime();
+                    long allocated = Metrics.allocatedBytes();
+                    tick();
+                    metrics.recordTick(System.nanoTime() - tickStart,
+                            allocated < 0 ? -1 : Metrics.allocatedBytes() - allocated);
+                    ticks++;
+                    steps++;
+                    accumulator -= TICK_NANOS;
+                }
+                if (steps > 1) {
+                    lateTicks += steps - 1;
+                }
+                // Too far behind to catch up: drop the backlog rather than spiral
+                if (accumulator >= TICK_NANOS) {
+                    lateTicks += accumulator / TICK_NANOS;
+                    accumulator %= TICK_NANOS;
+                }
+                alpha = (double) accumulator / TICK_NANOS;
+            }
+
+            if (renderMode == RenderMode.ACTIVE) {
+                renderFrame();
+            } else {
+                if (framePending) {
+                    droppedFrames++;
+                }
+                framePending = true;
+                repaint();
+            }
+
+            sleepNanos(TICK_NANOS - accumulator);
+        }
+    }
+
+    /**
+     * Paints a frame into the back buffer and flips it onto the screen.
+     * Repeats while the buffer contents are lost or restored underneath us.
+     *
+     * @return void This method does not return a value.
+     */
+    private void renderFrame() {
+        long start = System.nanoTime();
+        do {
+            do {
+                Graphics brush = strategy.getDrawGraphics();
+                try {
+                    synchronized (lock) {
+                        paint(brush);
+                    }
+                    if (showMetrics) {
+                        metrics.drawOverlay(brush, width);
+                    }
+                } finally {
+                    brush.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        frames++;
+        frameNanos = System.nanoTime() - start;
+        metrics.recordFrame(frameNanos);
+    }
+
     /**
      * Updates the game screen by first painting to an off-screen buffer
      * and then drawing it onto the screen, reducing flickering.
-     * If the game is running, it waits for 10 milliseconds before repainting.
-     * 
+     * Only used by passive rendering; active rendering ignores repaint requests.
+     *
      * @param brush The graphics context used for rendering.
      * @return void This method does not return a value.
      */
     public void update(Graphics brush) {
-        paint(buffer.getGraphics());
-        brush.drawImage(buffer, 0, 0, this);
-        if (on) {
-            sleep(10);
-            repaint();
-        }
+        long start = System.nanoTime();
+        do {
+            if (buffer == null
+                    || buffer.validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                buffer = createVolatileImage(width, height);
+            }
+            Graphics2D g = buffer.createGraphics();
+            try {
+                synchronized (lock) {
+                    paint(g);
+                }
+                if (showMetrics) {
+                    metrics.drawOverlay(g, width);
+                }
+            } finally {
+                g.dispose();
+            }
+            brush.drawImage(buffer, 0, 0, this);
+        } while (buffer.contentsLost());
+        framePending = false;
+        frames++;
+        frameNanos = System.nanoTime() - start;
+        metrics.recordFrame(frameNanos);
     }
 
     /**
      * Pauses execution for the specified time.
-     * Used to control the frame rate in the game loop.
-     * 
-     * @param time The duration to sleep in milliseconds.
+     * Used to wait for the next tick in the game loop.
+     *
+     * @param time The duration to sleep in nanoseconds.
      * @return void This method does not return a value.
      */
-    private void sleep(int time) {
+    private void sleepNanos(long time) {
         try {
-            Thread.sleep(time);
+            Thread.sleep(time / 1_000_000L, (int) (time % 1_000_000L));
         } catch (Exception exc) {
             // Ignoring the exception since it is non-critical
         }
     }
+
+    /**
+     * How a game presents its frames.
+     */
+    public enum RenderMode {
+        /** Frames are requested with {@code repaint()} and painted by the AWT event thread. */
+        PASSIVE,
+
+        /** Frames are painted and page-flipped by the game loop through a {@link BufferStrategy}. */
+        ACTIVE
+    }
 }
@@ -4,23 +4,49 @@ import java.awt.Graphics;
 
 /**
  * Represents a game object that can be drawn and updated.
- * Any class implementing this interface must define how it is rendered 
+ * Any class implementing this interface must define how it is rendered
  * and how it updates during the game loop.
- * 
- * @author 
+ *
+ * {@link #update()} advances the object by one fixed simulation tick and is the
+ * only place its state changes. The {@code draw} methods only read that state.
+ *
+ * @author
  * @version 1.0
  */
 public interface GameObject {
 
     /**
      * Draws the game object on the screen.
-     * 
+     *
      * @param brush The  used for rendering.
      */
     void draw(Graphics brush);
 
+    /**
+     * Draws the game object between its previous and current tick positions.
+     * Objects that do not move can rely on this default, which ignores {@code alpha}.
+     *
+     * @param brush The graphics context used for rendering.
+     * @param alpha How far the frame lies between the previous tick and the latest one, from 0 to 1.
+     */
+    default void draw(Graphics brush, double alpha) {
+        draw(brush);
+    }
+
+    /**
+     * Queues the game object to be drawn between its previous and current tick positions,
+     * batched with other objects of the same color. Objects that do not queue their own
+     * shapes can rely on this default, which draws them on their own after the batches.
+     *
+     * @param queue The render queue to add to.
+     * @param alpha How far the frame lies between the previous tick and the latest one, from 0 to 1.
+     */
+    default void draw(RenderQueue queue, double alpha) {
+        queue.drawDirect(this, alpha);
+    }
+
     /**
      * Updates the game object's state.
      */
     void update();
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how often non-negative values occur, in buckets that grow with the value
+ * so that every recorded value is kept to within about 3% while the whole range of
+ * a {@code long} fits in under two thousand counters. Values below 64 get a bucket
+ * each; above that, every power of two is split into 32 equal buckets.
+ *
+ * Recording is lock-free and never allocates, so it is safe to call from the game
+ * loop and from any number of threads while another thread reads percentiles.
+ * Readers see a consistent enough picture for monitoring, though a percentile read
+ * during heavy recording may miss values recorded at the same moment.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Histogram {
+    /** How many bits of each value are kept; every power of two gets {@code 2^SUB_BITS} buckets. */
+    private static final int SUB_BITS = 5;
+
+    /** The number of buckets in each power of two. */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /** The number of buckets needed for every non-negative {@code long}. */
+    private static final int BUCKETS = (62 - SUB_BITS) * SUB_COUNT + 2 * SUB_COUNT;
+
+    /** How many values fell in each bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** The number of values recorded. */
+    private final AtomicLong count = new AtomicLong();
+
+    /** The sum of the values recorded. */
+    private final AtomicLong total = new AtomicLong();
+
+    /** The largest value recorded. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value. Negative values are recorded as zero.
+     *
+     * @param value The value to record.
+     * @return void This method does not return a value.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Gets the value that the given percentage of recorded values do not exceed.
+     *
+     * @param percent The percentile, from 0 to 100.
+     * @return The highest value in the bucket holding that percentile, or {@code 0} if nothing was recorded.
+     */
+    public long percentile(double percent) {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highest(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Gets the number of values recorded.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the largest value recorded.
+     *
+     * @return The maximum, or {@code 0} if nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the average of the values recorded.
+     *
+     * @return The mean, or {@code 0} if nothing was recorded.
+     */
+    public double getMean() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : (double) total.get() / recorded;
+    }
+
+    /**
+     * Forgets every value recorded.
+     *
+     * @return void This method does not return a value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Finds the bucket a value falls in.
+     *
+     * @param value The non-negative value.
+     * @return The index of its bucket.
+     */
+    private static int bucket(long value) {
+        if (value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return shift * SUB_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the highest value that falls in a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The largest value counted in that bucket.
+     */
+    private static long highest(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long lowest = (long) (bucket % SUB_COUNT + SUB_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
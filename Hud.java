@@ -0,0 +1,222 @@
+package game;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The text drawn over the game: the score while playing, and the win or game-over
+ * message at the end. Every element of the current state is rasterized together
+ * into one transparent image, which is only made again when the score, the state or
+ * the game-over tilt changes; every other frame the whole HUD is a single image copy,
+ * with no string building or glyph layout.
+ *
+ * Laid-out text is kept as {@link GlyphVector}s keyed by content, so a message seen
+ * before, such as the score after a restart, is not laid out again.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Hud {
+    /** The most laid-out texts kept. */
+    private static final int CACHE_SIZE = 32;
+
+    /** The font the text is drawn in. */
+    private final Font font;
+
+    /** How the text is laid out, matching the graphics it is shown on. */
+    private final FontRenderContext context;
+
+    /** The width of the window. */
+    private final int width;
+
+    /** The height of the window. */
+    private final int height;
+
+    /** Laid-out texts by content, least recently used first. */
+    private final Map<String, GlyphVector> glyphs = new LinkedHashMap<String, GlyphVector>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GlyphVector> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** The texts of the elements being composed. */
+    private final GlyphVector[] texts = new GlyphVector[3];
+
+    /** The colors of the elements being composed. */
+    private final Color[] colors = new Color[3];
+
+    /** Where each element being composed goes in the window, with its baseline origin at (0, 0). */
+    private final AffineTransform[] places = new AffineTransform[3];
+
+    /** The composed HUD, or {@code null} before the first update. */
+    private BufferedImage image;
+
+    /** The x-coordinate of {@link #image} in the window. */
+    private int x;
+
+    /** The y-coordinate of {@link #image} in the window. */
+    private int y;
+
+    /** The state the image was composed for. */
+    private World.State shownState;
+
+    /** The score the image was composed for. */
+    private int shownScore;
+
+    /** The game-over tilt the image was composed for. */
+    private boolean shownRotateRight;
+
+    /**
+     * Constructs an empty HUD.
+     *
+     * @param font    The font to draw text in.
+     * @param context How to lay text out; that of the graphics the HUD is shown on.
+     * @param width   The width of the window.
+     * @param height  The height of the window.
+     * @return void This constructor does not return a value.
+     */
+    public Hud(Font font, FontRenderContext context, int width, int height) {
+        this.font = font;
+        this.context = context;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Composes the HUD for the game as it stands, unless it already shows that.
+     *
+     * @param state       The state of the game.
+     * @param score       The score.
+     * @param rotateRight Which way the game-over message tilts.
+     * @return {@code true} if the HUD changed, {@code false} if it already showed this.
+     */
+    public boolean update(World.State state, int score, boolean rotateRight) {
+        if (image != null && state == shownState && score == shownScore
+                && (state != World.State.LOST || rotateRight == shownRotateRight)) {
+            return false;
+        }
+        shownState = state;
+        shownScore = score;
+        shownRotateRight = rotateRight;
+
+        // Lay out and place each element of the state
+        int count;
+        if (state == World.State.RUNNING) {
+            count = place(0, "Score: " + score, Color.WHITE, AffineTransform.getTranslateInstance(10, 200));
+        } else if (state == World.State.WON) {
+            count = place(0, "You Win! Score: " + score, Color.GREEN,
+                    AffineTransform.getTranslateInstance(width / 2 - 60, height / 2 - 20));
+        } else {
+            AffineTransform tilted = AffineTransform.getTranslateInstance(width / 2, height / 2);
+            tilted.rotate(Math.toRadians(rotateRight ? 15 : -15));
+            tilted.translate(-50, 0);
+            place(0, "Game Over! Score: " + score, Color.RED, tilted);
+            count = place(1, "Press 'K' to Keep Going", Color.RED,
+                    AffineTransform.getTranslateInstance(width / 2 - 60, height / 2 + 50));
+        }
+        compose(count);
+        return true;
+    }
+
+    /**
+     * Copies the HUD onto the window in one image draw.
+     *
+     * @param g The graphics of the window.
+     * @return void This method does not return a value.
+     */
+    public void draw(Graphics g) {
+        g.drawImage(image, x, y, null);
+    }
+
+    /**
+     * Gets the x-coordinate of the HUD's image in the window.
+     *
+     * @return The left edge of the image.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the y-coordinate of the HUD's image in the window.
+     *
+     * @return The top edge of the image.
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gets the width of the HUD's image.
+     *
+     * @return The width in pixels.
+     */
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    /**
+     * Gets the height of the HUD's image.
+     *
+     * @return The height in pixels.
+     */
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    /**
+     * Sets one element to compose, laying its text out unless it is cached.
+     *
+     * @param i     The index of the element.
+     * @param text  The text.
+     * @param color The color of the text.
+     * @param place Where the text's baseline origin goes in the window.
+     * @return The number of elements set, {@code i + 1}.
+     */
+    private int place(int i, String text, Color color, AffineTransform place) {
+        texts[i] = glyphs.computeIfAbsent(text, t -> font.createGlyphVector(context, t));
+        colors[i] = color;
+        places[i] = place;
+        return i + 1;
+    }
+
+    /**
+     * Rasterizes the placed elements into one image just large enough to hold them.
+     *
+     * @param count The number of elements.
+     * @return void This method does not return a value.
+     */
+    private void compose(int count) {
+        // Find the area the elements cover, with a pixel to spare for rounding
+        Rectangle bounds = null;
+        for (int i = 0; i < count; i++) {
+            Rectangle b = places[i].createTransformedShape(texts[i].getOutline()).getBounds();
+            bounds = bounds == null ? b : bounds.union(b);
+        }
+        bounds.grow(1, 1);
+        x = bounds.x;
+        y = bounds.y;
+
+        // Draw every element into the image
+        image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        for (int i = 0; i < count; i++) {
+            AffineTransform at = AffineTransform.getTranslateInstance(-x, -y);
+            at.concatenate(places[i]);
+            g.setTransform(at);
+            g.setColor(colors[i]);
+            g.drawGlyphVector(texts[i], 0, 0);
+        }
+        g.dispose();
+    }
+}
@@ -0,0 +1,118 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size ring of timestamped input events passed from one thread to one other
+ * without locking. The AWT event thread offers key events as they arrive and the
+ * game loop drains them all at the start of each tick, so the simulation only ever
+ * sees input between ticks and never shares a field with the event thread.
+ *
+ * Each side owns one counter: the producer advances {@link #tail} after writing a
+ * slot and the consumer advances {@link #head} after reading one. Publishing a
+ * counter with a release write makes the slots written before it visible to the
+ * other side, so neither side waits on the other. A full ring refuses events
+ * rather than overwriting them and counts them as dropped.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class InputQueue {
+    /** Receives drained events. */
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * Handles one event.
+         *
+         * @param event The event, as offered.
+         * @param time  The {@link System#nanoTime()} at which it was offered.
+         * @return void This method does not return a value.
+         */
+        void accept(int event, long time);
+    }
+
+    /** The events, by sequence number modulo the capacity. */
+    private final int[] events;
+
+    /** The time each event was offered, by sequence number modulo the capacity. */
+    private final long[] times;
+
+    /** The capacity minus one, for wrapping sequence numbers onto slots. */
+    private final int mask;
+
+    /** The sequence number of the next event to drain; written only by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+
+    /** The sequence number of the next event to offer; written only by the producer. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** The number of events refused because the ring was full; written only by the producer. */
+    private volatile long dropped;
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity The most events held at once; rounded up to a power of two.
+     * @return void This constructor does not return a value.
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        events = new int[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an event, stamped with the current time. Only one thread may offer.
+     *
+     * @param event The event.
+     * @return {@code true} if the event was added, {@code false} if the queue was full.
+     */
+    public boolean offer(int event) {
+        long t = tail.get();
+        if (t - head.get() == events.length) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) t & mask;
+        events[slot] = event;
+        times[slot] = System.nanoTime();
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Hands every event offered so far to a handler, oldest first. Only one thread may drain.
+     *
+     * @param handler Receives each event.
+     * @return The number of events drained.
+     */
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            int slot = (int) i & mask;
+            handler.accept(events[slot], times[slot]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /**
+     * Gets the number of events refused because the queue was full.
+     *
+     * @return The number of dropped events.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Gets the most events the queue holds at once.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return events.length;
+    }
+}
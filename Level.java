@@ -0,0 +1,434 @@
+package game;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A board loaded from a file: the size of the playing field, a grid of bricks of
+ * different types, and polygon obstacles.
+ *
+ * Levels come in two formats. The binary format is meant for large boards. It holds
+ * the magic {@code "BBLV"}, a version byte, and the field width and height. Then come
+ * the grid origin, column and row counts, cell width and height, and the gap between
+ * cells, all as big-endian ints. Then one type byte per cell, row by row, where
+ * {@code 0} is an empty cell. Last come the obstacle count and, for each obstacle, its
+ * position and rotation, its vertex count and its vertices as doubles. Files of a
+ * megabyte or more are memory-mapped, and bricks are added to the {@link BrickField}
+ * straight from the mapped cells, so a board of millions of cells loads without
+ * creating an object per cell.
+ *
+ * The text format is meant for editing by hand, one command per line:
+ * <pre>
+ * # comments start with '#'
+ * size 800 600
+ * grid 0 0 75 20 5            (origin x and y, cell width and height, gap; only once)
+ * row 1111111111              ('1' to '9' is a brick of that type, '.' is an empty cell)
+ * obstacle 400 300 0 0,0 60,0 30,40   (x, y, rotation in degrees, then the vertices)
+ * </pre>
+ * Run {@code java game.Level <text file> <binary file>} to convert a text level to binary.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Level {
+    /** The bytes {@code "BBLV"} that start every binary level file. */
+    private static final int MAGIC = 0x42424C56;
+
+    /** The version of the binary format written by this class. */
+    private static final int VERSION = 1;
+
+    /** Files at least this large are memory-mapped rather than read into the heap. */
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    /** The width of the playing field. */
+    private int width;
+
+    /** The height of the playing field. */
+    private int height;
+
+    /** The x-coordinate of the grid's top-left cell. */
+    private final int originX;
+
+    /** The y-coordinate of the grid's top-left cell. */
+    private final int originY;
+
+    /** The number of columns in the grid. */
+    private int cols;
+
+    /** The number of rows in the grid. */
+    private int rows;
+
+    /** The width of each brick. */
+    private final int cellWidth;
+
+    /** The height of each brick. */
+    private final int cellHeight;
+
+    /** The space between neighbouring bricks. */
+    private final int gap;
+
+    /** The bricks of the level. */
+    private final BrickField bricks;
+
+    /** The obstacles of the level. */
+    private final List<Polygon> obstacles = new ArrayList<>();
+
+    /**
+     * Constructs a level with no obstacles around the given bricks.
+     *
+     * @param width      The width of the playing field.
+     * @param height     The height of the playing field.
+     * @param originX    The x-coordinate of the grid's top-left cell.
+     * @param originY    The y-coordinate of the grid's top-left cell.
+     * @param cellWidth  The width of each brick.
+     * @param cellHeight The height of each brick.
+     * @param gap        The space between neighbouring bricks.
+     * @param bricks     The bricks, laid out on the grid.
+     * @return void This constructor does not return a value.
+     */
+    private Level(int width, int height, int originX, int originY, int cellWidth, int cellHeight, int gap,
+            BrickField bricks) {
+        this.width = width;
+        this.height = height;
+        this.originX = originX;
+        this.originY = originY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.gap = gap;
+        this.bricks = bricks;
+    }
+
+    /**
+     * Loads a level in either format, telling them apart by the magic number.
+     *
+     * @param path The file to read.
+     * @return The loaded level.
+     * @throws IOException If the file cannot be read or is not a valid level.
+     */
+    public static Level load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer;
+            if (size >= MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the buffer is full
+                }
+                buffer.flip();
+            }
+            if (buffer.remaining() >= 4 && buffer.getInt(0) == MAGIC) {
+                return read(buffer);
+            }
+        }
+        try (BufferedReader in = Files.newBufferedReader(path)) {
+            return readText(in);
+        }
+    }
+
+    /**
+     * Reads a level in the binary format.
+     *
+     * @param buffer The buffer holding the level, positioned at its start.
+     * @return The loaded level.
+     * @throws IOException If the buffer does not hold a valid level.
+     */
+    public static Level read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a level file");
+            }
+            int version = buffer.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported level version " + version);
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int originX = buffer.getInt();
+            int originY = buffer.getInt();
+            int cols = buffer.getInt();
+            int rows = buffer.getInt();
+            int cellWidth = buffer.getInt();
+            int cellHeight = buffer.getInt();
+            int gap = buffer.getInt();
+            long cells = (long) cols * rows;
+            if (cols < 0 || rows < 0 || cells > buffer.remaining()) {
+                throw new IOException("Truncated level grid");
+            }
+            if (cellWidth <= 0 || cellHeight <= 0 || gap < 0) {
+                throw new IOException("Bad level cell size " + cellWidth + "x" + cellHeight + " with gap " + gap);
+            }
+
+            // Count the bricks first so the field is allocated once at its final size
+            int start = buffer.position();
+            int end = start + (int) cells;
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                if (buffer.get(i) != 0) {
+                    count++;
+                }
+            }
+
+            // Add the bricks straight from the cells
+            BrickField bricks = new BrickField(count);
+            int pitchX = cellWidth + gap;
+            int pitchY = cellHeight + gap;
+            int i = start;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    byte type = buffer.get(i++);
+                    if (type != 0) {
+                        bricks.add(originX + col * pitchX, originY + row * pitchY, cellWidth, cellHeight, type);
+                    }
+                }
+            }
+            buffer.position(end);
+
+            Level level = new Level(width, height, originX, originY, cellWidth, cellHeight, gap, bricks);
+            level.cols = cols;
+            level.rows = rows;
+
+            // Obstacles
+            int obstacleCount = buffer.getInt();
+            for (int o = 0; o < obstacleCount; o++) {
+                Point position = new Point(buffer.getDouble(), buffer.getDouble());
+                double rotation = buffer.getDouble();
+                Point[] shape = new Point[buffer.getInt()];
+                if (shape.length < 3) {
+                    throw new IOException("Obstacle " + o + " has fewer than 3 vertices");
+                }
+                for (int v = 0; v < shape.length; v++) {
+                    shape[v] = new Point(buffer.getDouble(), buffer.getDouble());
+                }
+                level.obstacles.add(new Polygon(shape, position, rotation));
+            }
+            return level;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Truncated level file", e);
+        }
+    }
+
+    /**
+     * Reads a level in the text format, adding bricks row by row as they are read.
+     *
+     * @param in The reader to read from; it is not closed.
+     * @return The loaded level.
+     * @throws IOException If the reader fails or the text is not a valid level.
+     */
+    public static Level readText(BufferedReader in) throws IOException {
+        int width = 800;
+        int height = 600;
+        Level level = null;
+        List<Polygon> obstacles = new ArrayList<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] words = line.split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "size":
+                        width = Integer.parseInt(words[1]);
+                        height = Integer.parseInt(words[2]);
+                        break;
+                    case "grid":
+                        if (level != null) {
+                            throw new IOException("Line " + lineNumber + ": more than one 'grid'");
+                        }
+                        int cellWidth = Integer.parseInt(words[3]);
+                        int cellHeight = Integer.parseInt(words[4]);
+                        int gap = Integer.parseInt(words[5]);
+                        if (cellWidth <= 0 || cellHeight <= 0 || gap < 0) {
+                            throw new IOException("Line " + lineNumber
+                                    + ": cell width and height must be positive and the gap not negative");
+                        }
+                        level = new Level(width, height, Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+                                cellWidth, cellHeight, gap, new BrickField(64));
+                        break;
+                    case "row":
+                        if (level == null) {
+                            throw new IOException("Line " + lineNumber + ": 'row' before 'grid'");
+                        }
+                        level.addRow(words.length > 1 ? words[1] : "", lineNumber);
+                        break;
+                    case "obstacle":
+                        Point[] shape = new Point[words.length - 4];
+                        for (int v = 0; v < shape.length; v++) {
+                            String[] xy = words[v + 4].split(",");
+                            shape[v] = new Point(Double.parseDouble(xy[0]), Double.parseDouble(xy[1]));
+                        }
+                        if (shape.length < 3) {
+                            throw new IOException("Line " + lineNumber + ": an obstacle needs at least 3 vertices");
+                        }
+                        obstacles.add(new Polygon(shape,
+                                new Point(Double.parseDouble(words[1]), Double.parseDouble(words[2])),
+                                Double.parseDouble(words[3])));
+                        break;
+                    default:
+                        throw new IOException("Line " + lineNumber + ": unknown command '" + words[0] + "'");
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Line " + lineNumber + ": malformed '" + words[0] + "'", e);
+            }
+        }
+        if (level == null) {
+            level = new Level(width, height, 0, 0, 1, 1, 0, new BrickField(1));
+        }
+        level.width = width;
+        level.height = height;
+        level.obstacles.addAll(obstacles);
+        return level;
+    }
+
+    /**
+     * Adds one row of a text level to the grid.
+     *
+     * @param cells      One character per cell.
+     * @param lineNumber The line the row came from, for error messages.
+     * @return void This method does not return a value.
+     * @throws IOException If a cell character is not valid.
+     */
+    private void addRow(String cells, int lineNumber) throws IOException {
+        for (int col = 0; col < cells.length(); col++) {
+            char c = cells.charAt(col);
+            if (c == '.') {
+                continue;
+            }
+            if (c < '1' || c > '9') {
+                throw new IOException("Line " + lineNumber + ": invalid cell '" + c + "'");
+            }
+            bricks.add(originX + col * (cellWidth + gap), originY + rows * (cellHeight + gap),
+                    cellWidth, cellHeight, (byte) (c - '0'));
+        }
+        cols = Math.max(cols, cells.length());
+        rows++;
+    }
+
+    /**
+     * Saves the level in the binary format.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     * @return void This method does not return a value.
+     */
+    public void write(Path path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path)) {
+            write(file);
+        }
+    }
+
+    /**
+     * Writes the level in the binary format.
+     *
+     * @param stream The stream to write to; it is flushed but not closed.
+     * @throws IOException If the stream cannot be written.
+     * @return void This method does not return a value.
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(originX);
+        out.writeInt(originY);
+        out.writeInt(cols);
+        out.writeInt(rows);
+        out.writeInt(cellWidth);
+        out.writeInt(cellHeight);
+        out.writeInt(gap);
+
+        // Put each brick back in its cell
+        byte[] cells = new byte[cols * rows];
+        for (int i = 0; i < bricks.size(); i++) {
+            int col = (bricks.getX(i) - originX) / (cellWidth + gap);
+            int row = (bricks.getY(i) - originY) / (cellHeight + gap);
+            cells[row * cols + col] = bricks.getType(i);
+        }
+        out.write(cells);
+
+        out.writeInt(obstacles.size());
+        for (Polygon obstacle : obstacles) {
+            out.writeDouble(obstacle.position.x);
+            out.writeDouble(obstacle.position.y);
+            out.writeDouble(obstacle.rotation);
+            out.writeInt(obstacle.getVertexCount());
+            for (int v = 0; v < obstacle.getVertexCount(); v++) {
+                out.writeDouble(obstacle.getShapeX(v));
+                out.writeDouble(obstacle.getShapeY(v));
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Gets the width of the playing field.
+     *
+     * @return The field width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the playing field.
+     *
+     * @return The field height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the bricks of the level.
+     *
+     * @return The brick field.
+     */
+    public BrickField getBricks() {
+        return bricks;
+    }
+
+    /**
+     * Gets the obstacles of the level.
+     *
+     * @return The obstacles.
+     */
+    public List<Polygon> getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Converts a level to the binary format.
+     *
+     * @param args The level to read, in either format, and the binary file to write.
+     * @throws IOException If a file cannot be read or written.
+     * @return void This method does not return a value.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java game.Level <level file> <binary level file>");
+            System.exit(2);
+        }
+        Level level = load(Paths.get(args[0]));
+        level.write(Paths.get(args[1]));
+        System.out.printf("%d bricks, %d obstacles written to %s%n",
+                level.bricks.size(), level.obstacles.size(), args[1]);
+    }
+}
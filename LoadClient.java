@@ -0,0 +1,323 @@
+package game;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Plays many simulated clients against a {@link MatchServer} from one thread, to
+ * measure how it holds up under load. Every client follows the lowest ball with
+ * its paddle from the server's tick messages, sending its input only when it
+ * changes, and restarts its match when the round ends.
+ *
+ * It reports the time between tick messages as each client sees it, which should
+ * stay near {@link Game#TICK_NANOS} however many clients play, and the round trip
+ * of inputs: from sending one until a tick message shows the server applied it.
+ *
+ * Run with {@code java game.LoadClient [--host=name] [--port=n] [--clients=n] [--seconds=n]}.
+ *
+ * @author Team
+ * @version 1.0
+ */
+public class LoadClient {
+    /** How far the paddle's center may be from the ball before it moves, in pixels. */
+    private static final int DEAD_ZONE = 8;
+
+    /** The number of inputs remembered for timing their round trips; a power of two. */
+    private static final int SENT_TIMES = 256;
+
+    /** The width of a paddle, for finding its center. */
+    private static final int PADDLE_WIDTH = 100;
+
+    /** The time between tick messages, as seen by every client. */
+    private final Histogram tickGaps = new Histogram();
+
+    /** The time from sending an input until it was applied. */
+    private final Histogram roundTrips = new Histogram();
+
+    /** The tick messages received. */
+    private long ticksReceived;
+
+    /** The bytes received. */
+    private long bytesReceived;
+
+    /** The clients that were disconnected. */
+    private int disconnected;
+
+    /**
+     * Connects the clients as set by the command line, plays for a while and prints the results.
+     *
+     * @param args {@code --host=}, {@code --port=}, {@code --clients=} and {@code --seconds=} options.
+     * @throws IOException If the clients cannot connect.
+     * @return void This method does not return a value.
+     */
+    public static void main(String[] args) throws IOException {
+        String host = "localhost";
+        int port = MatchServer.DEFAULT_PORT;
+        int clients = 100;
+        int seconds = 10;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--host=")) {
+                host = value;
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(value);
+            } else if (arg.startsWith("--clients=")) {
+                clients = Integer.parseInt(value);
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        LoadClient load = new LoadClient();
+        load.run(new InetSocketAddress(host, port), clients, seconds * 1_000_000_000L);
+        System.out.printf("%d clients for %d s: %d ticks received (%.0f/s), %.1f KB/s in, %d disconnected%n",
+                clients, seconds, load.ticksReceived, load.ticksReceived / (double) seconds,
+                load.bytesReceived / 1024.0 / seconds, load.disconnected);
+        System.out.printf("tick gap p50=%.2f ms p99=%.2f ms max=%.2f ms%n", load.tickGaps.percentile(50) / 1e6,
+                load.tickGaps.percentile(99) / 1e6, load.tickGaps.getMax() / 1e6);
+        System.out.printf("input round trip p50=%.2f ms p99=%.2f ms max=%.2f ms (%d inputs)%n",
+                load.roundTrips.percentile(50) / 1e6, load.roundTrips.percentile(99) / 1e6,
+                load.roundTrips.getMax() / 1e6, load.roundTrips.getCount());
+    }
+
+    /**
+     * Connects the clients and plays until the time is up.
+     *
+     * @param address  The server.
+     * @param clients  The number of clients.
+     * @param duration How long to play, in nanoseconds.
+     * @throws IOException If the selector fails or a client cannot connect.
+     * @return void This method does not return a value.
+     */
+    public void run(InetSocketAddress address, int clients, long duration) throws IOException {
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < clients; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(address);
+                Client client = new Client(channel);
+                client.key = channel.register(selector, SelectionKey.OP_CONNECT, client);
+            }
+
+            long end = System.nanoTime() + duration;
+            for (long left = duration; left > 0; left = end - System.nanoTime()) {
+                selector.select(Math.max(1, left / 1_000_000));
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client client = (Client) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            client.channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_READ);
+                        } else {
+                            if (key.isReadable()) {
+                                read(client);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                client.flush();
+                            }
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        key.cancel();
+                        client.channel.close();
+                        disconnected++;
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        }
+    }
+
+    /**
+     * Reads what the server sent a client and handles every whole message.
+     *
+     * @param client The client.
+     * @throws IOException If the channel fails or the server hung up.
+     * @return void This method does not return a value.
+     */
+    private void read(Client client) throws IOException {
+        int read = client.channel.read(client.in);
+        if (read < 0) {
+            throw new IOException("Closed by server");
+        }
+        bytesReceived += read;
+        client.in.flip();
+        ByteBuffer message;
+        while ((message = Protocol.next(client.in)) != null) {
+            byte type = message.get();
+            if (type == Protocol.WELCOME) {
+                Protocol.getVarLong(message);
+                client.player = (int) Protocol.getVarLong(message);
+                client.players = (int) Protocol.getVarLong(message);
+            } else if (type == Protocol.SNAPSHOT) {
+                client.restarting = false;
+            } else if (type == Protocol.TICK) {
+                handleTick(client, message);
+            }
+        }
+        client.in.compact();
+        if (!client.in.hasRemaining()) {
+            // Snapshots of large boards need more room
+            ByteBuffer larger = ByteBuffer.allocate(client.in.capacity() * 2);
+            client.in.flip();
+            larger.put(client.in);
+            client.in = larger;
+        }
+    }
+
+    /**
+     * Records the timing of a tick message and steers the client's paddle toward the lowest ball.
+     *
+     * @param client  The client.
+     * @param message The tick message, after its type.
+     * @throws IOException If the input cannot be sent.
+     * @return void This method does not return a value.
+     */
+    private void handleTick(Client client, ByteBuffer message) throws IOException {
+        long now = System.nanoTime();
+        ticksReceived++;
+        if (client.lastTick != 0) {
+            tickGaps.record(now - client.lastTick);
+        }
+        client.lastTick = now;
+
+        // Round and players
+        Protocol.getVarLong(message);
+        World.State state = World.State.values()[message.get()];
+        Protocol.getVarLong(message);
+        int paddleX = 0;
+        for (int i = 0; i < client.players; i++) {
+            message.get();
+            long ack = Protocol.getVarLong(message);
+            int x = Protocol.getSigned(message);
+            if (i == client.player) {
+                paddleX = x;
+                if (ack > client.acked) {
+                    roundTrips.record(now - client.sentTimes[(int) ack & (SENT_TIMES - 1)]);
+                    client.acked = ack;
+                }
+            }
+        }
+
+        // Follow the lowest ball
+        int balls = (int) Protocol.getVarLong(message);
+        float targetX = -1;
+        float lowest = -Float.MAX_VALUE;
+        for (int i = 0; i < balls; i++) {
+            float x = message.getFloat();
+            float y = message.getFloat();
+            if (y > lowest) {
+                lowest = y;
+                targetX = x;
+            }
+        }
+        int input = 0;
+        if (state != World.State.RUNNING) {
+            if (!client.restarting) {
+                input = World.INPUT_RESTART;
+                client.restarting = true;
+            }
+        } else if (targetX >= 0) {
+            float offset = targetX - (paddleX + PADDLE_WIDTH / 2f);
+            input = offset < -DEAD_ZONE ? World.INPUT_LEFT : offset > DEAD_ZONE ? World.INPUT_RIGHT : 0;
+        }
+        if (input != client.input) {
+            client.send(input, now);
+        }
+    }
+
+    /**
+     * One simulated client: its channel, what it has received, and what it last sent.
+     */
+    private static final class Client {
+        /** The client's socket. */
+        final SocketChannel channel;
+
+        /** When each recent input was sent, by sequence number. */
+        final long[] sentTimes = new long[SENT_TIMES];
+
+        /** Bytes waiting to be written. */
+        final ByteBuffer out = ByteBuffer.allocate(1024);
+
+        /** Bytes received and not yet handled. */
+        ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+
+        /** The channel's registration with the selector. */
+        SelectionKey key;
+
+        /** The client's player index in its match. */
+        int player;
+
+        /** The number of players in the client's match. */
+        int players;
+
+        /** The input last sent. */
+        int input;
+
+        /** The sequence number of the input last sent. */
+        long sequence;
+
+        /** The latest sequence number the server applied. */
+        long acked;
+
+        /** When the last tick message arrived, or {@code 0} before the first. */
+        long lastTick;
+
+        /** Whether a restart was asked for and the new round has not started yet. */
+        boolean restarting;
+
+        /**
+         * Constructs a client on a connecting socket.
+         *
+         * @param channel The client's socket.
+         * @return void This constructor does not return a value.
+         */
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Sends a new input.
+         *
+         * @param input The input bits to hold.
+         * @param now   The current time, for timing the round trip.
+         * @throws IOException If the channel fails.
+         * @return void This method does not return a value.
+         */
+        void send(int input, long now) throws IOException {
+            this.input = input & ~World.INPUT_RESTART;
+            sequence++;
+            sentTimes[(int) sequence & (SENT_TIMES - 1)] = now;
+            int start = Protocol.begin(out, Protocol.INPUT);
+            Protocol.putVarLong(out, sequence);
+            out.put((byte) input);
+            Protocol.end(out, start);
+            flush();
+        }
+
+        /**
+         * Writes pending bytes until the socket is full, and watches for it to drain if it fills.
+         *
+         * @throws IOException If the channel fails.
+         * @return void This method does not return a value.
+         */
+        void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+}
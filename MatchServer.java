@@ -0,0 +1,630 @@
+package game;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Hosts many multiplayer matches in one process, each an authoritative headless
+ * {@link World} with one paddle per player, played over TCP with the messages of
+ * {@link Protocol}. Clients are put into matches in the order they connect, and a
+ * match starts once it has all its players.
+ *
+ * One thread runs the event loop: it accepts connections and reads and writes them
+ * through a non-blocking {@link Selector}, and keeps the latest input of each player.
+ * Every {@link Game#TICK_NANOS} it hands all running matches to a worker pool, which
+ * ticks each one with its players' inputs batched into one array and encodes what
+ * changed. The loop then sends each match's message to its players. Since the loop
+ * waits for the workers, inputs never change while a match is ticking.
+ *
+ * A client that falls too far behind on reading is disconnected rather than letting
+ * its backlog grow; its paddle holds still for the rest of the match.
+ *
+ * Run with {@code java -Djava.awt.headless=true game.MatchServer [--port=n] [--players=n] [--workers=n]};
+ * it prints load statistics every few seconds. {@link LoadClient} plays many clients against it.
+ *
+ * @author Team
+ * @version 1.0
+ */
+public class MatchServer {
+    /** The port served on by default. */
+    static final int DEFAULT_PORT = 7777;
+
+    /** The most messages queued for one client before it is disconnected. */
+    private static final int BACKLOG_LIMIT = 256;
+
+    /** The most connections waiting to be accepted. */
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    /** The most ticks the loop catches up on at once after falling behind. */
+    private static final int MAX_CATCH_UP = 5;
+
+    /** How often statistics are printed, in nanoseconds. */
+    private static final long REPORT_NANOS = 5_000_000_000L;
+
+    /** The number of players in each match. */
+    private final int players;
+
+    /** Ticks the matches. */
+    private final ForkJoinPool workers;
+
+    /** Watches every channel. */
+    private final Selector selector;
+
+    /** Accepts new clients. */
+    private final ServerSocketChannel server;
+
+    /** The matches that have started and still have a player. */
+    private final List<Match> running = new ArrayList<>();
+
+    /** The match waiting for players, or {@code null}. */
+    private Match filling;
+
+    /** The number of matches created so far, for numbering them. */
+    private int matchCount;
+
+    /** The number of clients connected. */
+    private int clients;
+
+    /** How long each round of ticking every match took, in nanoseconds. */
+    private final Histogram tickNanos = new Histogram();
+
+    /** The bytes queued for sending since the last report. */
+    private long bytesSent;
+
+    /** The match ticks run since the last report. */
+    private long matchTicks;
+
+    /**
+     * Opens the server socket.
+     *
+     * @param port    The port to listen on.
+     * @param players The number of players in each match.
+     * @param threads The number of worker threads ticking matches.
+     * @throws IOException If the socket cannot be opened.
+     * @return void This constructor does not return a value.
+     */
+    public MatchServer(int port, int players, int threads) throws IOException {
+        this.players = players;
+        this.workers = new ForkJoinPool(threads);
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts a server as set by the command line and runs it until the process is killed.
+     *
+     * @param args {@code --port=}, {@code --players=} and {@code --workers=} options.
+     * @throws IOException If the server socket fails.
+     * @return void This method does not return a value.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = DEFAULT_PORT;
+        int players = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(value);
+            } else if (arg.startsWith("--players=")) {
+                players = Integer.parseInt(value);
+            } else if (arg.startsWith("--workers=")) {
+                threads = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        System.err.printf("Serving %d-player matches on port %d with %d workers%n", players, port, threads);
+        new MatchServer(port, players, threads).run();
+    }
+
+    /**
+     * Runs the event loop until the thread is interrupted.
+     *
+     * @throws IOException If the selector fails.
+     * @return void This method does not return a value.
+     */
+    public void run() throws IOException {
+        long nextTick = System.nanoTime() + Game.TICK_NANOS;
+        long nextReport = System.nanoTime() + REPORT_NANOS;
+        while (!Thread.currentThread().isInterrupted()) {
+            long wait = nextTick - System.nanoTime();
+            if (wait > 1_000_000) {
+                selector.select(wait / 1_000_000);
+            } else {
+                selector.selectNow();
+            }
+
+            // Handle I/O
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    acceptAll();
+                    continue;
+                }
+                Connection connection = (Connection) key.attachment();
+                try {
+                    if (key.isReadable()) {
+                        read(connection);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(connection);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    close(connection);
+                }
+            }
+
+            // Tick every match that is due, catching up a little if the loop fell behind
+            long now = System.nanoTime();
+            for (int caughtUp = 0; now - nextTick >= 0 && caughtUp < MAX_CATCH_UP; caughtUp++) {
+                tickMatches();
+                nextTick += Game.TICK_NANOS;
+            }
+            if (now - nextTick >= 0) {
+                nextTick = now + Game.TICK_NANOS;
+            }
+            if (now - nextReport >= 0) {
+                report();
+                nextReport += REPORT_NANOS;
+            }
+        }
+    }
+
+    /**
+     * Ticks every running match on the worker pool, then sends each match's changes to its players.
+     *
+     * @return void This method does not return a value.
+     */
+    private void tickMatches() {
+        if (running.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            workers.submit(() -> running.parallelStream().forEach(match -> {
+                try {
+                    match.tick();
+                } catch (RuntimeException e) {
+                    match.failure = e;
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        tickNanos.record(System.nanoTime() - start);
+        matchTicks += running.size();
+
+        // Walk backwards, since a match leaves the list when its last player is dropped
+        for (int m = running.size() - 1; m >= 0; m--) {
+            Match match = running.get(m);
+            if (match.failure != null) {
+                // End just this match; the others carry on
+                System.err.println("Ending match " + match.id + ": " + match.failure);
+                for (Connection connection : match.connections) {
+                    if (connection != null) {
+                        close(connection);
+                    }
+                }
+                running.remove(match);
+                continue;
+            }
+            for (Connection connection : match.connections) {
+                if (connection != null) {
+                    send(connection, match.message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts every waiting client. A client that cannot be accepted or set up is
+     * dropped without affecting anyone else.
+     *
+     * @return void This method does not return a value.
+     */
+    private void acceptAll() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (IOException e) {
+                // Out of file descriptors or the like; try again on the next wake-up
+                System.err.println("Could not accept a client: " + e.getMessage());
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                accept(channel);
+            } catch (IOException e) {
+                // Reset before it could be set up; nothing was seated
+                try {
+                    channel.close();
+                } catch (IOException closing) {
+                    // Already gone
+                }
+            }
+        }
+    }
+
+    /**
+     * Seats a new client in the match being filled, starting the match if it is full.
+     *
+     * @param channel The client's socket.
+     * @throws IOException If the client cannot be set up.
+     * @return void This method does not return a value.
+     */
+    private void accept(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        if (filling == null) {
+            filling = new Match(++matchCount, players);
+        }
+        int player = 0;
+        while (filling.connections[player] != null) {
+            player++;
+        }
+        Connection connection = new Connection(channel, filling, player);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        filling.connections[player] = connection;
+        filling.seated++;
+        clients++;
+
+        // Greet the client
+        ByteBuffer out = ByteBuffer.allocate(32);
+        int start = Protocol.begin(out, Protocol.WELCOME);
+        Protocol.putVarLong(out, filling.id);
+        Protocol.putVarLong(out, player);
+        Protocol.putVarLong(out, players);
+        Protocol.end(out, start);
+        send(connection, Arrays.copyOf(out.array(), out.position()));
+
+        // Start the match once every seat is taken
+        if (filling.seated == players) {
+            filling.encodeSnapshot();
+            for (Connection seated : filling.connections) {
+                send(seated, filling.message);
+            }
+            running.add(filling);
+            filling = null;
+        }
+    }
+
+    /**
+     * Reads what a client sent and keeps its latest input for the next tick.
+     *
+     * @param connection The client.
+     * @throws IOException If the channel fails or the client hung up.
+     * @return void This method does not return a value.
+     */
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            throw new IOException("Closed by client");
+        }
+        connection.in.flip();
+        ByteBuffer message;
+        while ((message = Protocol.next(connection.in)) != null) {
+            if (message.get() == Protocol.INPUT) {
+                long sequence = Protocol.getVarLong(message);
+                int input = message.get() & 0xFF;
+                Match match = connection.match;
+                int player = connection.player;
+
+                // A restart waits for the next tick even if newer input arrives first
+                match.inputs[player] = input | (match.inputs[player] & World.INPUT_RESTART);
+                match.acks[player] = sequence;
+            }
+        }
+        connection.in.compact();
+        if (!connection.in.hasRemaining()) {
+            throw new IOException("Message too large");
+        }
+    }
+
+    /**
+     * Queues a message for a client and writes as much as the socket takes now.
+     * The bytes are shared between clients and must not be changed afterwards.
+     *
+     * @param connection The client.
+     * @param message    The encoded message.
+     * @return void This method does not return a value.
+     */
+    private void send(Connection connection, byte[] message) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        if (connection.out.size() >= BACKLOG_LIMIT) {
+            close(connection);
+            return;
+        }
+        connection.out.add(ByteBuffer.wrap(message));
+        bytesSent += message.length;
+        try {
+            flush(connection);
+        } catch (IOException e) {
+            close(connection);
+        }
+    }
+
+    /**
+     * Writes queued messages until the socket is full, and watches for it to drain if it fills.
+     *
+     * @param connection The client.
+     * @throws IOException If the channel fails.
+     * @return void This method does not return a value.
+     */
+    private void flush(Connection connection) throws IOException {
+        ArrayDeque<ByteBuffer> out = connection.out;
+        while (!out.isEmpty()) {
+            ByteBuffer head = out.peek();
+            connection.channel.write(head);
+            if (head.hasRemaining()) {
+                connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            out.poll();
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Disconnects a client, leaving its paddle still, and ends its match if nobody is left.
+     *
+     * @param connection The client.
+     * @return void This method does not return a value.
+     */
+    private void close(Connection connection) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        clients--;
+        Match match = connection.match;
+        match.connections[connection.player] = null;
+        match.inputs[connection.player] = 0;
+        match.seated--;
+        if (match.seated == 0 && match != filling) {
+            running.remove(match);
+        }
+    }
+
+    /**
+     * Prints the load since the last report.
+     *
+     * @return void This method does not return a value.
+     */
+    private void report() {
+        double seconds = REPORT_NANOS / 1e9;
+        System.err.printf("matches=%d clients=%d match-ticks/s=%.0f tick p50=%.0fus p99=%.0fus max=%.0fus out=%.1f KB/s%n",
+                running.size(), clients, matchTicks / seconds, tickNanos.percentile(50) / 1e3,
+                tickNanos.percentile(99) / 1e3, tickNanos.getMax() / 1e3, bytesSent / seconds / 1024);
+        tickNanos.reset();
+        matchTicks = 0;
+        bytesSent = 0;
+    }
+
+    /**
+     * One match: its world, its players, their latest inputs, and the message
+     * describing the last tick.
+     */
+    private static final class Match {
+        /** The number of the match, for telling clients apart. */
+        final int id;
+
+        /** The authoritative world, with one paddle per player. */
+        final World world;
+
+        /** The players by index, or {@code null} for an empty seat. */
+        final Connection[] connections;
+
+        /** The latest input of each player, applied every tick until it changes. */
+        final int[] inputs;
+
+        /** The sequence number of the latest input of each player. */
+        final long[] acks;
+
+        /** The number of seats taken. */
+        int seated;
+
+        /** The message to send every player after the last tick. */
+        byte[] message;
+
+        /** What went wrong while ticking, or {@code null}; the match is ended when set. */
+        RuntimeException failure;
+
+        /** The bricks destroyed during the tick being played. */
+        private int[] destroyed = new int[16];
+
+        /** The number of entries in {@link #destroyed}. */
+        private int destroyedCount;
+
+        /** Encodes messages; grown as needed. */
+        private ByteBuffer out = ByteBuffer.allocate(1024);
+
+        /** Captures the world for starts and restarts. */
+        private final Snapshot snapshot = new Snapshot();
+
+        /**
+         * Constructs an empty match on the standard board.
+         *
+         * @param id      The number of the match.
+         * @param players The number of players.
+         * @return void This constructor does not return a value.
+         */
+        Match(int id, int players) {
+            this.id = id;
+            this.world = new World(800, 600, BrickField.grid(10, 5, 75, 20, 5), players);
+            this.connections = new Connection[players];
+            this.inputs = new int[players];
+            this.acks = new long[players];
+            world.getBricks().setDestroyListener(index -> {
+                if (destroyedCount == destroyed.length) {
+                    destroyed = Arrays.copyOf(destroyed, destroyedCount * 2);
+                }
+                destroyed[destroyedCount++] = index;
+            });
+        }
+
+        /**
+         * Plays one tick with every player's input and encodes what changed. A
+         * restart tick is followed by a whole snapshot, since it brings bricks back.
+         *
+         * @return void This method does not return a value.
+         */
+        void tick() {
+            boolean restart = false;
+            for (int input : inputs) {
+                restart |= (input & World.INPUT_RESTART) != 0;
+            }
+            destroyedCount = 0;
+            world.tick(inputs);
+            out.clear();
+
+            // Round, players and balls, with the inputs as applied
+            List<Ball> balls = world.getBalls();
+            reserve(64 + inputs.length * 24 + balls.size() * 8 + destroyedCount * 5);
+            int start = Protocol.begin(out, Protocol.TICK);
+            Protocol.putVarLong(out, world.getTick());
+            out.put((byte) world.getState().ordinal());
+            Protocol.putVarLong(out, world.getScore());
+            for (int i = 0; i < inputs.length; i++) {
+                out.put((byte) inputs[i]);
+                Protocol.putVarLong(out, acks[i]);
+                Protocol.putSigned(out, world.getPaddles().get(i).x);
+            }
+            Protocol.putVarLong(out, balls.size());
+            for (int i = 0; i < balls.size(); i++) {
+                out.putFloat((float) balls.get(i).getX());
+                out.putFloat((float) balls.get(i).getY());
+            }
+
+            // Destroyed bricks as gaps
+            Arrays.sort(destroyed, 0, destroyedCount);
+            Protocol.putVarLong(out, destroyedCount);
+            int previous = 0;
+            for (int i = 0; i < destroyedCount; i++) {
+                Protocol.putVarLong(out, destroyed[i] - previous);
+                previous = destroyed[i];
+            }
+            Protocol.end(out, start);
+
+            // A restart is applied once, then the whole world follows
+            if (restart) {
+                for (int i = 0; i < inputs.length; i++) {
+                    inputs[i] &= ~World.INPUT_RESTART;
+                }
+                putSnapshot();
+            }
+            message = Arrays.copyOf(out.array(), out.position());
+        }
+
+        /**
+         * Encodes the whole world as the next message.
+         *
+         * @return void This method does not return a value.
+         */
+        void encodeSnapshot() {
+            out.clear();
+            putSnapshot();
+            message = Arrays.copyOf(out.array(), out.position());
+        }
+
+        /**
+         * Appends a snapshot message of the world to the encoding buffer.
+         *
+         * @return void This method does not return a value.
+         */
+        private void putSnapshot() {
+            snapshot.captureFrom(world);
+            byte[] bytes = snapshot.toByteArray();
+            reserve(8 + bytes.length);
+            int start = Protocol.begin(out, Protocol.SNAPSHOT);
+            out.put(bytes);
+            Protocol.end(out, start);
+        }
+
+        /**
+         * Makes room for more bytes in the encoding buffer, keeping what was written.
+         *
+         * @param size The most bytes about to be written.
+         * @return void This method does not return a value.
+         */
+        private void reserve(int size) {
+            if (out.remaining() < size) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(out.position() + size, out.capacity() * 2));
+                out.flip();
+                larger.put(out);
+                out = larger;
+            }
+        }
+    }
+
+    /**
+     * One client: its channel, what it has sent but not yet been handled, and
+     * the messages waiting to be written to it.
+     */
+    private static final class Connection {
+        /** The client's socket. */
+        final SocketChannel channel;
+
+        /** The match the client plays in. */
+        final Match match;
+
+        /** The client's player index in the match. */
+        final int player;
+
+        /** Bytes received and not yet handled. */
+        final ByteBuffer in = ByteBuffer.allocate(4096);
+
+        /** Messages waiting to be written, oldest first; the first may be partly written. */
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+
+        /** The channel's registration with the selector. */
+        SelectionKey key;
+
+        /**
+         * Constructs a connection for a seated client.
+         *
+         * @param channel The client's socket.
+         * @param match   The match the client plays in.
+         * @param player  The client's player index in the match.
+         * @return void This constructor does not return a value.
+         */
+        Connection(SocketChannel channel, Match match, int player) {
+            this.channel = channel;
+            this.match = match;
+            this.player = player;
+        }
+    }
+}
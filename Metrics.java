@@ -0,0 +1,225 @@
+package game;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Frame pacing and simulation cost measurements, kept in {@link Histogram}s so that
+ * stutter shows up in the high percentiles instead of vanishing into an average.
+ * It records how long each frame took to paint, how long each tick took to run and
+ * how many bytes it allocated, how many collision tests and bricks each tick
+ * went through, and how long key events waited for a tick to see them.
+ *
+ * The measurements can be drawn as an overlay of p50, p99 and max values, and
+ * written out as CSV or JSON.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Metrics {
+    /** The names of the measurements, in the order they are shown and written. */
+    private static final String[] NAMES = {
+        "frame_ns", "tick_ns", "tick_alloc_bytes", "collision_checks", "bricks_visited",
+        "input_latency_ns"
+    };
+
+    /** Index of the frame paint time in {@link #histograms}. */
+    private static final int FRAME = 0;
+
+    /** Index of the tick run time in {@link #histograms}. */
+    private static final int TICK = 1;
+
+    /** Index of the bytes allocated per tick in {@link #histograms}. */
+    private static final int ALLOC = 2;
+
+    /** Index of the collision tests per tick in {@link #histograms}. */
+    private static final int CHECKS = 3;
+
+    /** Index of the bricks visited per tick in {@link #histograms}. */
+    private static final int VISITED = 4;
+
+    /** Index of the time key events waited for a tick in {@link #histograms}. */
+    private static final int INPUT = 5;
+
+    /** The font of the overlay; fixed-width so the columns line up. */
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    /** One histogram per measurement, in the order of {@link #NAMES}. */
+    private final Histogram[] histograms = new Histogram[NAMES.length];
+
+    /**
+     * Constructs an empty set of measurements.
+     *
+     * @return void This constructor does not return a value.
+     */
+    public Metrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Records how long a frame took to paint and present.
+     *
+     * @param nanos The frame time in nanoseconds.
+     * @return void This method does not return a value.
+     */
+    public void recordFrame(long nanos) {
+        histograms[FRAME].record(nanos);
+    }
+
+    /**
+     * Records how long a tick took and how much it allocated.
+     *
+     * @param nanos The tick time in nanoseconds.
+     * @param bytes The bytes allocated by the ticking thread, or a negative number if unknown.
+     * @return void This method does not return a value.
+     */
+    public void recordTick(long nanos, long bytes) {
+        histograms[TICK].record(nanos);
+        if (bytes >= 0) {
+            histograms[ALLOC].record(bytes);
+        }
+    }
+
+    /**
+     * Records how much collision work a tick did.
+     *
+     * @param checks  The number of collision tests run.
+     * @param visited The number of bricks looked at.
+     * @return void This method does not return a value.
+     */
+    public void recordCollisions(long checks, long visited) {
+        histograms[CHECKS].record(checks);
+        histograms[VISITED].record(visited);
+    }
+
+    /**
+     * Records how long a key event waited between arriving and being seen by a tick.
+     *
+     * @param nanos The wait in nanoseconds.
+     * @return void This method does not return a value.
+     */
+    public void recordInputLatency(long nanos) {
+        histograms[INPUT].record(nanos);
+    }
+
+    /**
+     * Forgets every measurement.
+     *
+     * @return void This method does not return a value.
+     */
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Draws a table of p50, p99 and max values in the top-right corner.
+     *
+     * @param brush The graphics context used for drawing.
+     * @param width The width of the area to draw in.
+     * @return void This method does not return a value.
+     */
+    public void drawOverlay(Graphics brush, int width) {
+        Font previous = brush.getFont();
+        brush.setFont(OVERLAY_FONT);
+        FontMetrics font = brush.getFontMetrics();
+        int lineHeight = font.getHeight();
+        String[] lines = new String[NAMES.length + 1];
+        lines[0] = String.format("%-17s %9s %9s %9s", "", "p50", "p99", "max");
+        int widest = font.stringWidth(lines[0]);
+        for (int i = 0; i < NAMES.length; i++) {
+            Histogram h = histograms[i];
+            lines[i + 1] = String.format("%-17s %9d %9d %9d", NAMES[i], h.percentile(50), h.percentile(99), h.getMax());
+            widest = Math.max(widest, font.stringWidth(lines[i + 1]));
+        }
+
+        // Background, so the table stays readable over the bricks
+        int x = width - widest - 10;
+        brush.setColor(Color.BLACK);
+        brush.fillRect(x - 5, 5, widest + 10, lines.length * lineHeight + 6);
+
+        // Table
+        brush.setColor(Color.YELLOW);
+        for (int i = 0; i < lines.length; i++) {
+            brush.drawString(lines[i], x, 8 + font.getAscent() + i * lineHeight);
+        }
+        brush.setFont(previous);
+    }
+
+    /**
+     * Saves the measurements to a file, as JSON if its name ends in {@code .json} and as CSV otherwise.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     * @return void This method does not return a value.
+     */
+    public void write(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path)) {
+            if (path.toString().endsWith(".json")) {
+                writeJson(out);
+            } else {
+                writeCsv(out);
+            }
+        }
+    }
+
+    /**
+     * Writes one CSV row per measurement, with its count, mean, percentiles and max.
+     *
+     * @param out The writer to write to; it is not closed.
+     * @throws IOException If the writer fails.
+     * @return void This method does not return a value.
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("metric,count,mean,p50,p90,p99,p999,max\n");
+        for (int i = 0; i < NAMES.length; i++) {
+            Histogram h = histograms[i];
+            out.write(String.format(Locale.ROOT, "%s,%d,%.1f,%d,%d,%d,%d,%d\n", NAMES[i], h.getCount(), h.getMean(),
+                    h.percentile(50), h.percentile(90), h.percentile(99), h.percentile(99.9), h.getMax()));
+        }
+    }
+
+    /**
+     * Writes the measurements as a JSON object keyed by measurement name.
+     *
+     * @param out The writer to write to; it is not closed.
+     * @throws IOException If the writer fails.
+     * @return void This method does not return a value.
+     */
+    public void writeJson(Writer out) throws IOException {
+        out.write("{\n");
+        for (int i = 0; i < NAMES.length; i++) {
+            Histogram h = histograms[i];
+            out.write(String.format(Locale.ROOT, "  \"%s\": {\"count\": %d, \"mean\": %.1f, \"p50\": %d, \"p90\": %d, "
+                    + "\"p99\": %d, \"p999\": %d, \"max\": %d}%s\n", NAMES[i], h.getCount(), h.getMean(),
+                    h.percentile(50), h.percentile(90), h.percentile(99), h.percentile(99.9), h.getMax(),
+                    i + 1 < NAMES.length ? "," : ""));
+        }
+        out.write("}\n");
+    }
+
+    /**
+     * Gets the number of bytes the current thread has allocated so far.
+     *
+     * @return The allocated byte count, or {@code -1} if the JVM cannot report it.
+     */
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -13,7 +13,7 @@ import java.awt.event.KeyListener;
  * @author Team
  * @version 1.0
  */
-public class Paddle {
+public class Paddle implements GameObject {
     /** The x-coordinate of the paddle. */
     int x;
 
@@ -29,6 +29,12 @@ public class Paddle {
     /** The speed at which the paddle moves. */
     int speed = 8;
 
+    /** The x-coordinate of the paddle at the start of the last tick. */
+    private int prevX;
+
+    /** The width of the playing field the paddle is kept within. */
+    private final int fieldWidth;
+
     /**
      * Constructs a paddle with the given position and dimensions.
      * 
@@ -39,10 +45,26 @@ public class Paddle {
      * @return void This constructor does not return a value.
      */
     public Paddle(int x, int y, int width, int height) {
+        this(x, y, width, height, 800);
+    }
+
+    /**
+     * Constructs a paddle with the given position and dimensions on a field of the given width.
+     * 
+     * @param x          The initial x-coordinate of the paddle.
+     * @param y          The initial y-coordinate of the paddle.
+     * @param width      The width of the paddle.
+     * @param height     The height of the paddle.
+     * @param fieldWidth The width of the playing field.
+     * @return void This constructor does not return a value.
+     */
+    public Paddle(int x, int y, int width, int height, int fieldWidth) {
         this.x = x;
         this.y = y;
         this.width = width;
         this.height = height;
+        this.prevX = x;
+        this.fieldWidth = fieldWidth;
     }
 
     /**
@@ -51,59 +73,166 @@ public class Paddle {
      * @param g The graphics context used for drawing.
      * @return void This method does not return a value.
      */
+    @Override
     public void draw(Graphics g) {
         g.setColor(Color.CYAN);
         g.fillRect(x, y, width, height);
     }
 
+    /**
+     * Draws the paddle between its previous and current tick positions.
+     * 
+     * @param g     The graphics context used for drawing.
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return void This method does not return a value.
+     */
+    @Override
+    public void draw(Graphics g, double alpha) {
+        g.setColor(Color.CYAN);
+        g.fillRect((int) Math.round(prevX + (x - prevX) * alpha), y, width, height);
+    }
+
+    /**
+     * Queues the paddle to be drawn between its previous and current tick positions.
+     * 
+     * @param queue The render queue to add to.
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return void This method does not return a value.
+     */
+    @Override
+    public void draw(RenderQueue queue, double alpha) {
+        queue.fillRect(Color.CYAN, Math.round(prevX + (x - prevX) * alpha), y, width, height);
+    }
+
+    /**
+     * Marks the area the paddle can be drawn in this frame, anywhere between its
+     * previous and current tick positions, as needing a redraw.
+     * 
+     * @param region The region to add the area to.
+     * @return void This method does not return a value.
+     */
+    public void addBounds(DirtyRegion region) {
+        region.add(Math.min(prevX, x) - 1, y, Math.abs(x - prevX) + width + 2, height);
+    }
+
+    /**
+     * Gets the x-coordinate of the paddle at the start of the last tick.
+     * 
+     * @return The previous x-coordinate.
+     */
+    public int getPrevX() {
+        return prevX;
+    }
+
+    /**
+     * Puts the paddle back where it was, as when restoring a saved game.
+     * 
+     * @param inX     The x-coordinate of the paddle.
+     * @param inPrevX The x-coordinate of the paddle at the start of the last tick.
+     * @return void This method does not return a value.
+     */
+    public void restore(int inX, int inPrevX) {
+        x = inX;
+        prevX = inPrevX;
+    }
+
+    /**
+     * Moves the paddle one step in the held direction. Holding both directions cancels out.
+     * 
+     * @param left  Whether the left control is held.
+     * @param right Whether the right control is held.
+     * @return void This method does not return a value.
+     */
+    public void move(boolean left, boolean right) {
+        prevX = x;
+        if (left) {
+            x -= speed;
+        }
+        if (right) {
+            x += speed;
+        }
+    }
+
     /**
      * Updates the paddle's position to ensure it remains within the screen bounds.
      * 
      * @return void This method does not return a value.
      */
+    @Override
     public void update() {
         if (x < 0) {
             x = 0;
         }
-        if (x + width > 800) {
-            x = 800 - width;
+        if (x + width > fieldWidth) {
+            x = fieldWidth - width;
         }
     }
 
     /**
-     * Handles keyboard input for paddle movement.
-     * Implements {@link KeyListener} to detect left and right arrow key presses.
+     * Handles keyboard input for paddle movement and restarting.
+     * Implements {@link KeyListener} to detect the arrow keys and 'K', and
+     * {@link PaddleController} so the keyboard can drive a world like any controller.
+     *
+     * Key events arrive on the AWT event thread, and are only passed on as
+     * timestamped events through an {@link InputQueue}; the ticking thread drains
+     * them at the start of each tick. The two threads share nothing else, and the
+     * time each event waited is the input latency, at most about one tick.
      */
-    public class Movement implements KeyListener {
-        /** Indicates whether the left arrow key is being pressed. */
-        private boolean left = false;
+    public class Movement implements KeyListener, PaddleController {
+        /** Set on the event of a key being let go; the low bits say which key. */
+        private static final int RELEASED = 1 << 16;
+
+        /** The events passed from the event thread to the ticking thread. */
+        private final InputQueue queue = new InputQueue(256);
+
+        /** The input bits of the keys held, as seen by the event thread. */
+        private int pressed;
+
+        /** The input bits of the keys held, as seen by the event thread; read by the ticking thread after a dropped event. */
+        private volatile int pressedSnapshot;
+
+        /** The input bits of the keys held, as seen by the ticking thread. */
+        private int held;
 
-        /** Indicates whether the right arrow key is being pressed. */
-        private boolean right = false;
+        /** Whether 'K' was pressed since the last drain. */
+        private boolean restart;
+
+        /** The number of dropped events the ticking thread has caught up with. */
+        private long droppedSeen;
+
+        /** Where to record input latency during a drain, or {@code null}. */
+        private Metrics metrics;
+
+        /** The time of the drain in progress. */
+        private long drainTime;
+
+        /** Applies each drained event; kept so draining does not allocate. */
+        private final InputQueue.Handler apply = this::apply;
 
         /**
-         * Constructs a Movement object with initial key states.
+         * Constructs a Movement object with no keys held.
          * 
          * @return void This constructor does not return a value.
          */
         public Movement() {
-            left = false;
-            right = false;
+            pressed = 0;
+            held = 0;
         }
 
         /**
-         * Handles key press events to start movement.
+         * Handles key press events to start movement or restart.
+         * Held keys repeat, so only the first press of each is passed on.
          * 
          * @param e The key event.
          * @return void This method does not return a value.
          */
         @Override
         public void keyPressed(KeyEvent e) {
-            if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-                left = true;
-            }
-            if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-                right = true;
+            int bit = inputBit(e.getKeyCode());
+            if (bit != 0 && (pressed & bit) == 0) {
+                pressed |= bit;
+                pressedSnapshot = pressed;
+                queue.offer(bit);
             }
         }
 
@@ -115,11 +244,11 @@ public class Paddle {
          */
         @Override
         public void keyReleased(KeyEvent e) {
-            if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-                left = false;
-            }
-            if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-                right = false;
+            int bit = inputBit(e.getKeyCode());
+            if (bit != 0 && (pressed & bit) != 0) {
+                pressed &= ~bit;
+                pressedSnapshot = pressed;
+                queue.offer(bit | RELEASED);
             }
         }
 
@@ -135,17 +264,104 @@ public class Paddle {
         }
 
         /**
-         * Moves the paddle based on key input.
+         * Moves the paddle based on the keys held as of the last drain.
+         * Must be called on the ticking thread.
          * 
          * @param paddle The paddle object to be moved.
          * @return void This method does not return a value.
          */
         public void handleMovement(Paddle paddle) {
-            if (left) {
-                paddle.x -= speed;
+            paddle.move((held & World.INPUT_LEFT) != 0, (held & World.INPUT_RIGHT) != 0);
+        }
+
+        /**
+         * Drains the key events that arrived since the last call and gets the
+         * input for the next tick. Must be called on the ticking thread.
+         * 
+         * @return A combination of {@link World#INPUT_LEFT}, {@link World#INPUT_RIGHT}
+         *         and {@link World#INPUT_RESTART}.
+         */
+        public int getInput() {
+            return getInput(null);
+        }
+
+        /**
+         * Gets the input for the next tick from the keys held, as {@link #getInput()}.
+         * Must be called on the ticking thread.
+         * 
+         * @param world The world about to be ticked; not consulted.
+         * @return A combination of {@link World#INPUT_LEFT}, {@link World#INPUT_RIGHT}
+         *         and {@link World#INPUT_RESTART}.
+         */
+        @Override
+        public int nextInput(World world) {
+            return getInput();
+        }
+
+        /**
+         * Drains the key events that arrived since the last call and gets the
+         * input for the next tick, recording how long each event waited.
+         * Must be called on the ticking thread.
+         * 
+         * @param metrics Where to record input latency, or {@code null}.
+         * @return A combination of {@link World#INPUT_LEFT}, {@link World#INPUT_RIGHT}
+         *         and {@link World#INPUT_RESTART}.
+         */
+        public int getInput(Metrics metrics) {
+            this.metrics = metrics;
+            this.drainTime = System.nanoTime();
+            queue.drain(apply);
+            this.metrics = null;
+
+            // Events were lost while the ring was full; take the keys as they are now
+            long dropped = queue.getDropped();
+            if (dropped != droppedSeen) {
+                droppedSeen = dropped;
+                held = pressedSnapshot & (World.INPUT_LEFT | World.INPUT_RIGHT);
             }
-            if (right) {
-                paddle.x += speed;
+
+            int input = held | (restart ? World.INPUT_RESTART : 0);
+            restart = false;
+            return input;
+        }
+
+        /**
+         * Applies one drained key event to the held keys.
+         * 
+         * @param event The input bit of the key, with {@link #RELEASED} set if it was let go.
+         * @param time  When the event was offered.
+         * @return void This method does not return a value.
+         */
+        private void apply(int event, long time) {
+            if (metrics != null) {
+                metrics.recordInputLatency(drainTime - time);
+            }
+            int bit = event & ~RELEASED;
+            if (bit == World.INPUT_RESTART) {
+                restart |= (event & RELEASED) == 0;
+            } else if ((event & RELEASED) != 0) {
+                held &= ~bit;
+            } else {
+                held |= bit;
+            }
+        }
+
+        /**
+         * Maps a key to the input bit it controls.
+         * 
+         * @param keyCode The key code.
+         * @return The {@link World} input bit, or 0 if the key does nothing.
+         */
+        private int inputBit(int keyCode) {
+            switch (keyCode) {
+                case KeyEvent.VK_LEFT:
+                    return World.INPUT_LEFT;
+                case KeyEvent.VK_RIGHT:
+                    return World.INPUT_RIGHT;
+                case KeyEvent.VK_K:
+                    return World.INPUT_RESTART;
+                default:
+                    return 0;
             }
         }
     }
@@ -0,0 +1,232 @@
+package game;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Decides the paddle input for each tick of a {@link World}. A controller sees the
+ * world as it stands before the tick and returns the input bits to tick it with.
+ * The keyboard is one, as {@link Paddle.Movement}; the others play sessions with
+ * nobody at the keyboard.
+ *
+ * @author Team
+ * @version 1.0
+ */
+interface PaddleController {
+    /**
+     * Decides the input for the next tick.
+     *
+     * @param world The world about to be ticked.
+     * @return A combination of {@link World#INPUT_LEFT}, {@link World#INPUT_RIGHT} and {@link World#INPUT_RESTART}.
+     */
+    int nextInput(World world);
+
+    /**
+     * Steers the paddle under the lowest ball, aiming a fixed distance off the
+     * paddle's centre and only moving once the ball is further off than a dead zone.
+     * The offset and dead zone make sessions of one board play out differently.
+     */
+    final class Follow implements PaddleController {
+        /** How far right of the paddle's centre the ball is aimed for. */
+        private final int offset;
+
+        /** How far off its target the ball may be before the paddle moves. */
+        private final int deadZone;
+
+        /**
+         * Constructs a controller that follows the ball.
+         *
+         * @param offset   How far right of the paddle's centre to aim for; negative for left.
+         * @param deadZone How far off its target the ball may be before the paddle moves.
+         * @return void This constructor does not return a value.
+         */
+        public Follow(int offset, int deadZone) {
+            this.offset = offset;
+            this.deadZone = deadZone;
+        }
+
+        /**
+         * Moves toward the lowest ball, or holds still when no ball is in play.
+         *
+         * @param world The world about to be ticked.
+         * @return The input bits for the tick.
+         */
+        @Override
+        public int nextInput(World world) {
+            Ball ball = world.getLowestBall();
+            if (ball == null) {
+                return 0;
+            }
+            Paddle paddle = world.getPaddle();
+            double error = ball.getX() + ball.getDiameter() / 2.0 - (paddle.x + paddle.width / 2.0 + offset);
+            if (error < -deadZone) {
+                return World.INPUT_LEFT;
+            }
+            if (error > deadZone) {
+                return World.INPUT_RIGHT;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Steers a paddle to where the next ball will come down, working the landing
+     * point out in closed form rather than by stepping the ball forward. A ball
+     * falling toward the paddle is followed in a straight line to the paddle's top,
+     * with its path folded back into the field for every side wall it would bounce
+     * off; a rising ball is assumed to come back from the top wall at the same
+     * speed. Bricks and obstacles are ignored, since the prediction is made again
+     * every tick and corrects itself once the ball turns. Of several balls, the one
+     * arriving first is played.
+     *
+     * The cost is a few arithmetic operations per ball, so thousands of sessions
+     * can be played on one core.
+     */
+    final class Intercept implements PaddleController {
+        /** The index of the paddle steered. */
+        private final int player;
+
+        /** How far right of the paddle's centre the ball is aimed for. */
+        private final int offset;
+
+        /**
+         * Constructs a controller that plays the given paddle.
+         *
+         * @param player The index of the paddle in the world.
+         * @param offset How far right of the paddle's centre to meet the ball; negative
+         *               for left, which sends the ball back at an angle.
+         * @return void This constructor does not return a value.
+         */
+        public Intercept(int player, int offset) {
+            this.player = player;
+            this.offset = offset;
+        }
+
+        /**
+         * Moves toward where the first ball to arrive will meet the paddle, or holds
+         * still when no ball is coming.
+         *
+         * @param world The world about to be ticked.
+         * @return The input bits for the tick.
+         */
+        @Override
+        public int nextInput(World world) {
+            Paddle paddle = world.getPaddles().get(player);
+            List<Ball> balls = world.getBalls();
+            double soonest = Double.MAX_VALUE;
+            double target = Double.NaN;
+            for (int i = 0; i < balls.size(); i++) {
+                Ball ball = balls.get(i);
+                double diameter = ball.getDiameter();
+                double dy = ball.getDy();
+                double ticks;
+                if (dy > 0) {
+                    // Falling: straight down to the paddle, unless it is already past
+                    double gap = paddle.y - (ball.getY() + diameter);
+                    if (gap < 0) {
+                        continue;
+                    }
+                    ticks = gap / dy;
+                } else if (dy < 0) {
+                    // Rising: up to the top wall and back down
+                    ticks = (ball.getY() + paddle.y - diameter) / -dy;
+                } else {
+                    continue;
+                }
+                if (ticks < soonest) {
+                    soonest = ticks;
+                    target = fold(ball.getX() + ball.getDx() * ticks, world.getWidth() - diameter) + diameter / 2;
+                }
+            }
+            if (Double.isNaN(target)) {
+                return 0;
+            }
+
+            // Move unless within half a step of the target, so the paddle does not jitter
+            double error = target - (paddle.x + paddle.width / 2.0 + offset);
+            if (error < -paddle.speed / 2.0) {
+                return World.INPUT_LEFT;
+            }
+            if (error > paddle.speed / 2.0) {
+                return World.INPUT_RIGHT;
+            }
+            return 0;
+        }
+
+        /**
+         * Folds a straight-line x-coordinate back into the field, as bouncing
+         * between the side walls would.
+         *
+         * @param x    The x-coordinate of the unbounced path.
+         * @param span The width the ball's left edge can move within.
+         * @return The x-coordinate after every bounce.
+         */
+        static double fold(double x, double span) {
+            if (span <= 0) {
+                return 0;
+            }
+            double period = 2 * span;
+            double folded = x % period;
+            if (folded < 0) {
+                folded += period;
+            }
+            return folded <= span ? folded : period - folded;
+        }
+    }
+
+    /**
+     * Plays a fixed sequence of inputs, one per tick, starting over when it runs out.
+     */
+    final class Scripted implements PaddleController {
+        /** The inputs to play. */
+        private final int[] inputs;
+
+        /** The index of the next input to play. */
+        private int next;
+
+        /**
+         * Constructs a controller that plays a fixed sequence.
+         *
+         * @param inputs The inputs to play, one per tick; not copied.
+         * @return void This constructor does not return a value.
+         */
+        public Scripted(int[] inputs) {
+            this.inputs = inputs;
+        }
+
+        /**
+         * Builds a random sequence of held keys: each of left, right and nothing is
+         * held for a random stretch of ticks.
+         *
+         * @param seed    The seed of the sequence.
+         * @param length  The number of ticks in the sequence.
+         * @param maxHold The longest stretch a key is held, in ticks.
+         * @return A controller playing the sequence.
+         */
+        public static Scripted random(long seed, int length, int maxHold) {
+            SplittableRandom random = new SplittableRandom(seed);
+            int[] inputs = new int[length];
+            for (int i = 0; i < length; ) {
+                int input = random.nextInt(3);
+                int end = Math.min(length, i + 1 + random.nextInt(maxHold));
+                while (i < end) {
+                    inputs[i++] = input;
+                }
+            }
+            return new Scripted(inputs);
+        }
+
+        /**
+         * Plays the next input of the sequence.
+         *
+         * @param world The world about to be ticked.
+         * @return The input bits for the tick.
+         */
+        @Override
+        public int nextInput(World world) {
+            int input = inputs[next];
+            next = next + 1 == inputs.length ? 0 : next + 1;
+            return input;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package game;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The sparks thrown off by breaking bricks. Particles live in parallel primitive
+ * arrays of a fixed capacity, one slot per particle, so spawning and updating them
+ * never allocates; bursts that do not fit are cut short rather than growing the
+ * arrays.
+ *
+ * Updating moves every particle under gravity in one tight loop over the arrays,
+ * split over a {@link ForkJoinPool} when there are enough particles to be worth it,
+ * and then packs the live particles to the front in a single pass. Rendering writes
+ * each particle straight into the pixels of an integer raster, so a hundred
+ * thousand particles cost one loop rather than a hundred thousand draw calls.
+ * The area drawn over is gathered per square of the screen, so sparks from bricks
+ * far apart do not mark everything between them to be redrawn.
+ *
+ * Particles are only an effect: they are not part of the {@link World} and do not
+ * affect how it plays.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class ParticleSystem {
+    /** The particles spawned per destroyed brick. */
+    private static final int PARTICLES_PER_BRICK = 32;
+
+    /** The downward acceleration of particles, in pixels per second squared. */
+    private static final float GRAVITY = 600;
+
+    /** The fewest particles per task when updating on a pool. */
+    private static final int PARTICLES_PER_TASK = 8192;
+
+    /** The log2 of the side of the screen squares drawn areas are gathered over. */
+    private static final int BIN_SHIFT = 6;
+
+    /** The x-coordinates of the particles. */
+    private final float[] x;
+
+    /** The y-coordinates of the particles. */
+    private final float[] y;
+
+    /** The horizontal velocities of the particles, in pixels per second. */
+    private final float[] vx;
+
+    /** The vertical velocities of the particles, in pixels per second. */
+    private final float[] vy;
+
+    /** The seconds each particle has left to live. */
+    private final float[] life;
+
+    /** The RGB color of each particle. */
+    private final int[] color;
+
+    /** The number of live particles, stored in the first slots. */
+    private int count;
+
+    /** The state of the random number generator that scatters particles. */
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    /** The left, top, right and bottom of the particles in each screen square; empty between renders. */
+    private int[] binBounds = new int[0];
+
+    /**
+     * Constructs an empty particle system.
+     *
+     * @param capacity The most particles alive at once.
+     * @return void This constructor does not return a value.
+     */
+    public ParticleSystem(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new float[capacity];
+        color = new int[capacity];
+    }
+
+    /**
+     * Throws off particles from a destroyed brick, in the brick's color.
+     *
+     * @param bricks The field holding the brick.
+     * @param index  The index of the brick.
+     * @return void This method does not return a value.
+     */
+    public void breakBrick(BrickField bricks, int index) {
+        burst(bricks.getX(index), bricks.getY(index), bricks.getWidth(index), bricks.getHeight(index),
+                Brick.colorOf(bricks.getType(index)).getRGB(), PARTICLES_PER_BRICK);
+    }
+
+    /**
+     * Spawns particles scattered over a rectangle, flying out in random directions.
+     *
+     * @param bx    The x-coordinate of the rectangle.
+     * @param by    The y-coordinate of the rectangle.
+     * @param bw    The width of the rectangle.
+     * @param bh    The height of the rectangle.
+     * @param rgb   The color of the particles.
+     * @param total The number of particles to spawn; fewer are spawned if the system is full.
+     * @return void This method does not return a value.
+     */
+    public void burst(float bx, float by, float bw, float bh, int rgb, int total) {
+        int end = Math.min(x.length, count + total);
+        for (int i = count; i < end; i++) {
+            x[i] = bx + random() * bw;
+            y[i] = by + random() * bh;
+            vx[i] = (random() - 0.5f) * 300;
+            vy[i] = (random() - 0.8f) * 300;
+            life[i] = 0.5f + random() * 0.7f;
+            color[i] = rgb;
+        }
+        count = end;
+    }
+
+    /**
+     * Moves every particle through the given time and removes those that expired.
+     *
+     * @param dt   The time step in seconds.
+     * @param pool The pool to update large batches on, or {@code null} to update on the calling thread.
+     * @return void This method does not return a value.
+     */
+    public void update(float dt, ForkJoinPool pool) {
+        if (pool == null || count <= PARTICLES_PER_TASK) {
+            integrate(0, count, dt);
+        } else {
+            pool.invoke(new Integrate(0, count, dt));
+        }
+
+        // Pack the live particles to the front
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (life[i] > 0) {
+                if (kept != i) {
+                    x[kept] = x[i];
+                    y[kept] = y[i];
+                    vx[kept] = vx[i];
+                    vy[kept] = vy[i];
+                    life[kept] = life[i];
+                    color[kept] = color[i];
+                }
+                kept++;
+            }
+        }
+        count = kept;
+    }
+
+    /**
+     * Writes every particle as a 2x2 square into a raster of {@code 0xRRGGBB} pixels.
+     *
+     * @param pixels  The raster, row by row.
+     * @param width   The width of the raster.
+     * @param height  The height of the raster.
+     * @param cameraX The board x-coordinate of the raster's left edge.
+     * @param cameraY The board y-coordinate of the raster's top edge.
+     * @param region  Receives the board area the particles cover, one rectangle per screen square holding any.
+     * @return void This method does not return a value.
+     */
+    public void render(int[] pixels, int width, int height, int cameraX, int cameraY, DirtyRegion region) {
+        int binCols = (width >> BIN_SHIFT) + 1;
+        int bins = binCols * ((height >> BIN_SHIFT) + 1);
+        if (binBounds.length < bins * 4) {
+            binBounds = new int[bins * 4];
+            clearBins(0, bins * 4);
+        }
+        int[] bounds = binBounds;
+        for (int i = 0; i < count; i++) {
+            int px = (int) x[i] - cameraX;
+            int py = (int) y[i] - cameraY;
+            if (px < 0 || py < 0 || px >= width - 1 || py >= height - 1) {
+                continue;
+            }
+            int rgb = color[i];
+            int p = py * width + px;
+            pixels[p] = rgb;
+            pixels[p + 1] = rgb;
+            pixels[p + width] = rgb;
+            pixels[p + width + 1] = rgb;
+            int b = ((py >> BIN_SHIFT) * binCols + (px >> BIN_SHIFT)) * 4;
+            bounds[b] = Math.min(bounds[b], px);
+            bounds[b + 1] = Math.min(bounds[b + 1], py);
+            bounds[b + 2] = Math.max(bounds[b + 2], px);
+            bounds[b + 3] = Math.max(bounds[b + 3], py);
+        }
+
+        // Report the squares that were drawn in, leaving them empty for the next render
+        for (int b = 0; b < bins * 4; b += 4) {
+            if (bounds[b] <= bounds[b + 2]) {
+                region.add(bounds[b] + cameraX, bounds[b + 1] + cameraY,
+                        bounds[b + 2] - bounds[b] + 2, bounds[b + 3] - bounds[b + 1] + 2);
+                clearBins(b, b + 4);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of live particles.
+     *
+     * @return The particle count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the most particles that can be alive at once.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return x.length;
+    }
+
+    /**
+     * Moves a range of particles through the given time.
+     *
+     * @param from The first particle to move.
+     * @param to   One past the last particle to move.
+     * @param dt   The time step in seconds.
+     * @return void This method does not return a value.
+     */
+    private void integrate(int from, int to, float dt) {
+        float fall = GRAVITY * dt;
+        for (int i = from; i < to; i++) {
+            vy[i] += fall;
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            life[i] -= dt;
+        }
+    }
+
+    /**
+     * Empties a range of {@link #binBounds}.
+     *
+     * @param from The first entry to empty, at the start of a square.
+     * @param to   One past the last entry to empty, at the end of a square.
+     * @return void This method does not return a value.
+     */
+    private void clearBins(int from, int to) {
+        for (int b = from; b < to; b += 4) {
+            binBounds[b] = Integer.MAX_VALUE;
+            binBounds[b + 1] = Integer.MAX_VALUE;
+            binBounds[b + 2] = Integer.MIN_VALUE;
+            binBounds[b + 3] = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Draws the next number from a fast xorshift generator.
+     *
+     * @return A number from 0 inclusive to 1 exclusive.
+     */
+    private float random() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (seed >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * Moves a range of particles, splitting it in half until each task has about
+     * {@link #PARTICLES_PER_TASK} of them.
+     */
+    private final class Integrate extends RecursiveAction {
+        /** The serialization version; unused, since tasks are not serialized. */
+        private static final long serialVersionUID = 1L;
+
+        /** The first particle of the range. */
+        private final int from;
+
+        /** One past the last particle of the range. */
+        private final int to;
+
+        /** The time step in seconds. */
+        private final float dt;
+
+        /**
+         * Constructs a task for a range of particles.
+         *
+         * @param from The first particle of the range.
+         * @param to   One past the last particle of the range.
+         * @param dt   The time step in seconds.
+         * @return void This constructor does not return a value.
+         */
+        private Integrate(int from, int to, float dt) {
+            this.from = from;
+            this.to = to;
+            this.dt = dt;
+        }
+
+        /**
+         * Moves the range directly if it is small enough, otherwise splits it.
+         *
+         * @return void This method does not return a value.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= PARTICLES_PER_TASK) {
+                integrate(from, to, dt);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Integrate(from, mid, dt), new Integrate(mid, to, dt));
+        }
+    }
+}
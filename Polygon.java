@@ -7,6 +7,15 @@ package game;
  * The initial shape is defined relative to its own origin and is adjusted 
  * accordingly during construction.
  * 
+ * The transformed vertices are cached in primitive arrays and only recomputed
+ * when {@link #position} or {@link #rotation} has changed since they were last
+ * used, so repeated hit tests against a resting polygon do not allocate.
+ * The shape itself must not be modified after construction.
+ * 
+ * Collision against circles and other polygons uses the separating axis theorem,
+ * which assumes the polygon is convex. The outward edge normals it projects onto
+ * are cached alongside the vertices and only recomputed when the rotation changes.
+ * 
  * @author Team
  * @version 1.0
  */
@@ -20,6 +29,39 @@ class Polygon {
     /** The rotation angle of the polygon in degrees (0-360). */
     public double rotation;
 
+    /** The centroid of the shape, computed once at construction. */
+    private final Point center;
+
+    /** The transformed x-coordinates of the vertices. */
+    private final double[] xs;
+
+    /** The transformed y-coordinates of the vertices. */
+    private final double[] ys;
+
+    /** The rotation the cached vertices were computed for. */
+    private double cachedRotation = Double.NaN;
+
+    /** The position x-coordinate the cached vertices were computed for. */
+    private double cachedX = Double.NaN;
+
+    /** The position y-coordinate the cached vertices were computed for. */
+    private double cachedY = Double.NaN;
+
+    /** The sine of the cached rotation. */
+    private double sin;
+
+    /** The cosine of the cached rotation. */
+    private double cos;
+
+    /** The x-components of the outward unit normals of the edges; edge {@code i} runs from vertex {@code i} to {@code i + 1}. */
+    private final double[] normalXs;
+
+    /** The y-components of the outward unit normals of the edges. */
+    private final double[] normalYs;
+
+    /** {@code 1} if the shape's vertices wind with positive signed area, otherwise {@code -1}. */
+    private final int winding;
+
     /**
      * Constructs a polygon with a given shape, position, and rotation.
      * 
@@ -45,29 +87,101 @@ class Polygon {
             p.x -= origin.x;
             p.y -= origin.y;
         }
+
+        center = findCenter();
+        xs = new double[shape.length];
+        ys = new double[shape.length];
+        normalXs = new double[shape.length];
+        normalYs = new double[shape.length];
+
+        double signedArea = 0;
+        for (int i = 0, j = 1; i < shape.length; i++, j = (j + 1) % shape.length) {
+            signedArea += shape[i].x * shape[j].y - shape[j].x * shape[i].y;
+        }
+        winding = signedArea >= 0 ? 1 : -1;
     }
 
     /**
      * Returns the actual points of the polygon after applying rotation and position offset.
+     * This allocates a new array of points; hot paths should use {@link #getX(int)} and
+     * {@link #getY(int)} instead.
      * 
      * @return An array of points representing the transformed polygon.
      */
     public Point[] getPoints() {
-        Point center = findCenter();
+        refresh();
         Point[] points = new Point[shape.length];
         for (int i = 0; i < shape.length; i++) {
-            Point p = shape[i];
-            double x = ((p.x - center.x) * Math.cos(Math.toRadians(rotation)))
-                    - ((p.y - center.y) * Math.sin(Math.toRadians(rotation)))
-                    + center.x / 2 + position.x;
-            double y = ((p.x - center.x) * Math.sin(Math.toRadians(rotation)))
-                    + ((p.y - center.y) * Math.cos(Math.toRadians(rotation)))
-                    + center.y / 2 + position.y;
-            points[i] = new Point(x, y);
+            points[i] = new Point(xs[i], ys[i]);
         }
         return points;
     }
 
+    /**
+     * Makes a polygon with the same shape, position and rotation that can be
+     * moved, rotated and hit-tested independently of this one.
+     * 
+     * @return The new polygon.
+     */
+    public Polygon copy() {
+        Point[] points = new Point[shape.length];
+        for (int i = 0; i < shape.length; i++) {
+            points[i] = shape[i].clone();
+        }
+        return new Polygon(points, position.clone(), rotation);
+    }
+
+    /**
+     * Gets the number of vertices of the polygon.
+     * 
+     * @return The vertex count.
+     */
+    public int getVertexCount() {
+        return shape.length;
+    }
+
+    /**
+     * Gets the x-coordinate of a vertex of the untransformed shape, relative to its top-left corner.
+     * 
+     * @param i The index of the vertex.
+     * @return The x-coordinate of the vertex before rotation and offset.
+     */
+    double getShapeX(int i) {
+        return shape[i].x;
+    }
+
+    /**
+     * Gets the y-coordinate of a vertex of the untransformed shape, relative to its top-left corner.
+     * 
+     * @param i The index of the vertex.
+     * @return The y-coordinate of the vertex before rotation and offset.
+     */
+    double getShapeY(int i) {
+        return shape[i].y;
+    }
+
+    /**
+     * Gets the x-coordinate of a vertex after applying rotation and position offset.
+     * 
+     * @param i The index of the vertex.
+     * @return The transformed x-coordinate.
+     */
+    public double getX(int i) {
+        refresh();
+        return xs[i];
+    }
+
+    /**
+     * Gets the y-coordinate of a vertex after applying rotation and position offset.
+     * 
+     * @param i The index of the vertex.
+     * @return The transformed y-coordinate.
+     */
+    public double getY(int i) {
+        refresh();
+        return ys[i];
+    }
+
     /**
      * Checks if a given point is inside the polygon using the ray-casting algorithm.
      * 
@@ -75,17 +189,238 @@ class Polygon {
      * @return {@code true} if the point is inside the polygon, {@code false} otherwise.
      */
     public boolean contains(Point point) {
-        Point[] points = getPoints();
-        double crossingNumber = 0;
+        return contains(point.x, point.y);
+    }
+
+    /**
+     * Checks if a given point is inside the polygon using the ray-casting algorithm.
+     * 
+     * @param px The x-coordinate of the point.
+     * @param py The y-coordinate of the point.
+     * @return {@code true} if the point is inside the polygon, {@code false} otherwise.
+     */
+    public boolean contains(double px, double py) {
+        refresh();
+        boolean inside = false;
         for (int i = 0, j = 1; i < shape.length; i++, j = (j + 1) % shape.length) {
-            if ((((points[i].x < point.x) && (point.x <= points[j].x)) ||
-                    ((points[j].x < point.x) && (point.x <= points[i].x))) &&
-                    (point.y > points[i].y + (points[j].y - points[i].y) /
-                            (points[j].x - points[i].x) * (point.x - points[i].x))) {
-                crossingNumber++;
+            if ((((xs[i] < px) && (px <= xs[j])) ||
+                    ((xs[j] < px) && (px <= xs[i]))) &&
+                    (py > ys[i] + (ys[j] - ys[i]) /
+                            (xs[j] - xs[i]) * (px - xs[i]))) {
+                inside = !inside;
             }
         }
-        return crossingNumber % 2 == 1;
+        return inside;
+    }
+
+    /**
+     * Recomputes the transformed vertices if the position or rotation has changed
+     * since they were last computed. The sine and cosine are only recomputed when
+     * the rotation itself has changed.
+     * 
+     * @return void This method does not return a value.
+     */
+    void refresh() {
+        if (rotation == cachedRotation && position.x == cachedX && position.y == cachedY) {
+            return;
+        }
+        boolean rotated = rotation != cachedRotation;
+        if (rotated) {
+            double radians = StrictMath.toRadians(rotation);
+            sin = StrictMath.sin(radians);
+            cos = StrictMath.cos(radians);
+            cachedRotation = rotation;
+        }
+        cachedX = position.x;
+        cachedY = position.y;
+
+        double offsetX = center.x / 2 + position.x;
+        double offsetY = center.y / 2 + position.y;
+        for (int i = 0; i < shape.length; i++) {
+            double rx = shape[i].x - center.x;
+            double ry = shape[i].y - center.y;
+            xs[i] = rx * cos - ry * sin + offsetX;
+            ys[i] = rx * sin + ry * cos + offsetY;
+        }
+
+        // Edge normals only depend on the rotation
+        if (rotated) {
+            for (int i = 0, j = 1; i < shape.length; i++, j = (j + 1) % shape.length) {
+                double ex = xs[j] - xs[i];
+                double ey = ys[j] - ys[i];
+                double length = Math.sqrt(ex * ex + ey * ey);
+                normalXs[i] = length == 0 ? 0 : winding * ey / length;
+                normalYs[i] = length == 0 ? 0 : -winding * ex / length;
+            }
+        }
+    }
+
+    /**
+     * Tests a circle against this polygon with the separating axis theorem. The axes are
+     * the polygon's edge normals plus the direction from its closest vertex to the circle.
+     * On overlap the contact receives the penetration depth and the unit normal pointing
+     * from the polygon towards the circle, along which the circle should be pushed out.
+     * 
+     * @param cx      The x-coordinate of the circle's center.
+     * @param cy      The y-coordinate of the circle's center.
+     * @param radius  The radius of the circle.
+     * @param contact Receives the depth and normal of the overlap.
+     * @return {@code true} if the circle overlaps the polygon, otherwise {@code false}.
+     */
+    public boolean collideCircle(double cx, double cy, double radius, Contact contact) {
+        refresh();
+        double bestDepth = Double.POSITIVE_INFINITY;
+        double bestX = 0;
+        double bestY = 0;
+
+        for (int i = 0; i < shape.length; i++) {
+            double depth = circleOverlap(normalXs[i], normalYs[i], cx, cy, radius);
+            if (depth == 0) {
+                return false;
+            }
+            if (Math.abs(depth) < bestDepth) {
+                bestDepth = Math.abs(depth);
+                bestX = Math.signum(depth) * normalXs[i];
+                bestY = Math.signum(depth) * normalYs[i];
+            }
+        }
+
+        // The axis towards the closest vertex separates the circle from the corners
+        int closest = 0;
+        double closestSq = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < shape.length; i++) {
+            double dx = cx - xs[i];
+            double dy = cy - ys[i];
+            double distSq = dx * dx + dy * dy;
+            if (distSq < closestSq) {
+                closestSq = distSq;
+                closest = i;
+            }
+        }
+        if (closestSq > 0) {
+            double length = Math.sqrt(closestSq);
+            double ax = (cx - xs[closest]) / length;
+            double ay = (cy - ys[closest]) / length;
+            double depth = circleOverlap(ax, ay, cx, cy, radius);
+            if (depth == 0) {
+                return false;
+            }
+            if (Math.abs(depth) < bestDepth) {
+                bestDepth = Math.abs(depth);
+                bestX = Math.signum(depth) * ax;
+                bestY = Math.signum(depth) * ay;
+            }
+        }
+
+        contact.normalX = bestX;
+        contact.normalY = bestY;
+        contact.depth = bestDepth;
+        return true;
+    }
+
+    /**
+     * Tests another polygon against this one with the separating axis theorem, projecting
+     * both onto the edge normals of each. On overlap the contact receives the penetration
+     * depth and the unit normal pointing from this polygon towards the other.
+     * 
+     * @param other   The polygon to test.
+     * @param contact Receives the depth and normal of the overlap.
+     * @return {@code true} if the polygons overlap, otherwise {@code false}.
+     */
+    public boolean collide(Polygon other, Contact contact) {
+        refresh();
+        other.refresh();
+        double bestDepth = Double.POSITIVE_INFINITY;
+        double bestX = 0;
+        double bestY = 0;
+
+        for (int pass = 0; pass < 2; pass++) {
+            Polygon axes = pass == 0 ? this : other;
+            for (int i = 0; i < axes.shape.length; i++) {
+                double ax = axes.normalXs[i];
+                double ay = axes.normalYs[i];
+                double depth = overlap(projectMin(ax, ay), projectMax(ax, ay),
+                        other.projectMin(ax, ay), other.projectMax(ax, ay));
+                if (depth == 0) {
+                    return false;
+                }
+                if (Math.abs(depth) < bestDepth) {
+                    bestDepth = Math.abs(depth);
+                    bestX = Math.signum(depth) * ax;
+                    bestY = Math.signum(depth) * ay;
+                }
+            }
+        }
+
+        contact.normalX = bestX;
+        contact.normalY = bestY;
+        contact.depth = bestDepth;
+        return true;
+    }
+
+    /**
+     * Measures how far a circle overlaps this polygon along an axis.
+     * 
+     * @param ax     The x-component of the unit axis.
+     * @param ay     The y-component of the unit axis.
+     * @param cx     The x-coordinate of the circle's center.
+     * @param cy     The y-coordinate of the circle's center.
+     * @param radius The radius of the circle.
+     * @return The overlap as described by {@link #overlap}.
+     */
+    private double circleOverlap(double ax, double ay, double cx, double cy, double radius) {
+        double mid = cx * ax + cy * ay;
+        return overlap(projectMin(ax, ay), projectMax(ax, ay), mid - radius, mid + radius);
+    }
+
+    /**
+     * Measures how far a second interval must move to stop overlapping a first one,
+     * taking the shorter way out.
+     * 
+     * @param min      The start of the first interval.
+     * @param max      The end of the first interval.
+     * @param otherMin The start of the second interval.
+     * @param otherMax The end of the second interval.
+     * @return The distance to move the second interval, positive along the axis and negative
+     *         against it, or {@code 0} if the intervals do not overlap.
+     */
+    private static double overlap(double min, double max, double otherMin, double otherMax) {
+        double forward = max - otherMin;
+        double backward = otherMax - min;
+        if (forward <= 0 || backward <= 0) {
+            return 0;
+        }
+        return forward <= backward ? forward : -backward;
+    }
+
+    /**
+     * Finds the smallest projection of the transformed vertices onto an axis.
+     * 
+     * @param ax The x-component of the axis.
+     * @param ay The y-component of the axis.
+     * @return The minimum projection.
+     */
+    private double projectMin(double ax, double ay) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < shape.length; i++) {
+            min = Math.min(min, xs[i] * ax + ys[i] * ay);
+        }
+        return min;
+    }
+
+    /**
+     * Finds the largest projection of the transformed vertices onto an axis.
+     * 
+     * @param ax The x-component of the axis.
+     * @param ay The y-component of the axis.
+     * @return The maximum projection.
+     */
+    private double projectMax(double ax, double ay) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < shape.length; i++) {
+            max = Math.max(max, xs[i] * ax + ys[i] * ay);
+        }
+        return max;
     }
 
     /**
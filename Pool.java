@@ -0,0 +1,164 @@
+package game;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps released game objects for reuse, so that objects spawned and removed all
+ * the time, such as balls, do not become garbage. {@link #acquire()} hands out a
+ * released object when there is one and only creates a new one otherwise;
+ * {@link #release} runs the reset hook on an object and keeps it for the next
+ * acquire. Once a level has reached its busiest moment, spawning allocates nothing.
+ *
+ * The pool counts how many objects it has created and handed out, and how many
+ * are in use, so that a pool that keeps growing or is mostly idle shows up.
+ * It is not thread-safe; {@link World} only uses it on the ticking thread.
+ *
+ * @param <T> The type of object pooled.
+ * @author Team
+ * @version 1.0
+ */
+class Pool<T extends GameObject> {
+    /** Creates an object when none is free. */
+    private final Supplier<T> factory;
+
+    /** Clears an object's state when it is released, or {@code null} if nothing needs clearing. */
+    private final Consumer<? super T> resetHook;
+
+    /** The released objects waiting to be reused; the first {@link #freeCount} entries are used. */
+    private Object[] free = new Object[16];
+
+    /** The number of objects waiting to be reused. */
+    private int freeCount;
+
+    /** The number of objects created by the pool. */
+    private long created;
+
+    /** The number of times an object was handed out. */
+    private long acquired;
+
+    /** The number of objects handed out and not yet released. */
+    private int inUse;
+
+    /** The most objects in use at once. */
+    private int peakInUse;
+
+    /**
+     * Constructs an empty pool.
+     *
+     * @param factory   Creates an object when none is free.
+     * @param resetHook Clears an object's state when it is released, or {@code null}.
+     * @return void This constructor does not return a value.
+     */
+    public Pool(Supplier<T> factory, Consumer<? super T> resetHook) {
+        this.factory = factory;
+        this.resetHook = resetHook;
+    }
+
+    /**
+     * Creates objects ahead of time so that the first acquires do not allocate.
+     *
+     * @param count The number of free objects to have ready.
+     * @return void This method does not return a value.
+     */
+    public void prefill(int count) {
+        while (freeCount < count) {
+            push(factory.get());
+            created++;
+        }
+    }
+
+    /**
+     * Hands out a free object, creating one if none is free.
+     *
+     * @return An object for the caller to set up and use.
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        T object;
+        if (freeCount > 0) {
+            object = (T) free[--freeCount];
+            free[freeCount] = null;
+        } else {
+            object = factory.get();
+            created++;
+        }
+        acquired++;
+        inUse++;
+        peakInUse = Math.max(peakInUse, inUse);
+        return object;
+    }
+
+    /**
+     * Takes back an object that is no longer used. The caller must not touch it afterwards.
+     *
+     * @param object An object handed out by {@link #acquire()}.
+     * @return void This method does not return a value.
+     */
+    public void release(T object) {
+        if (resetHook != null) {
+            resetHook.accept(object);
+        }
+        push(object);
+        inUse--;
+    }
+
+    /**
+     * Gets the number of objects handed out and not yet released.
+     *
+     * @return The number of objects in use.
+     */
+    public int getInUse() {
+        return inUse;
+    }
+
+    /**
+     * Gets the most objects that have been in use at once.
+     *
+     * @return The peak number of objects in use.
+     */
+    public int getPeakInUse() {
+        return peakInUse;
+    }
+
+    /**
+     * Gets the number of released objects waiting to be reused.
+     *
+     * @return The number of free objects.
+     */
+    public int getFree() {
+        return freeCount;
+    }
+
+    /**
+     * Gets the number of objects the pool has created.
+     *
+     * @return The number of objects created.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Gets the number of times an object was handed out, whether reused or new.
+     *
+     * @return The number of acquires.
+     */
+    public long getAcquired() {
+        return acquired;
+    }
+
+    /**
+     * Adds an object to the free list.
+     *
+     * @param object The object to keep.
+     * @return void This method does not return a value.
+     */
+    private void push(T object) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = object;
+    }
+}
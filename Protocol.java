@@ -0,0 +1,161 @@
+package game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The messages exchanged between a {@link MatchServer} and its clients over TCP.
+ * Every message is a 4-byte big-endian length followed by that many bytes: a type
+ * byte and the body. Numbers in bodies are unsigned variable-length integers of
+ * 7 bits per byte, as in {@link Replay}, with signed ones zigzag-encoded.
+ *
+ * From server to client:
+ * <ul>
+ * <li>{@link #WELCOME}: the match number, the client's player index and the number of players.</li>
+ * <li>{@link #SNAPSHOT}: a {@link Snapshot} of the match's world, sent when the match starts and
+ * after every restart, right behind the {@link #TICK} of the tick that restarted.</li>
+ * <li>{@link #TICK}: what one tick changed. The tick number, the state and the score; for every
+ * player the input applied this tick, the sequence number of the last input received from
+ * them, and the paddle's x-coordinate; the number of balls and each one's position as two
+ * 4-byte floats; and the bricks destroyed this tick, in ascending order, as gaps from the
+ * previous one.</li>
+ * </ul>
+ *
+ * From client to server:
+ * <ul>
+ * <li>{@link #INPUT}: a sequence number the client counts up, and the input bits to hold from
+ * the next tick on, as for {@link World#tick(int[])}.</li>
+ * </ul>
+ *
+ * Since every client is told the exact inputs each tick was played with, a client
+ * holding the same board can also run the world itself in lockstep and use the
+ * deltas only to check it.
+ *
+ * @author Team
+ * @version 1.0
+ */
+final class Protocol {
+    /** The server's greeting, telling a client its match and player. */
+    public static final byte WELCOME = 1;
+
+    /** The full state of a match's world. */
+    public static final byte SNAPSHOT = 2;
+
+    /** The changes of one tick. */
+    public static final byte TICK = 3;
+
+    /** A client's held input. */
+    public static final byte INPUT = 4;
+
+    /** The largest message either side accepts, in bytes. */
+    public static final int MAX_MESSAGE = 1 << 20;
+
+    /**
+     * Prevents instantiation; all members are static.
+     *
+     * @return void This constructor does not return a value.
+     */
+    private Protocol() {
+    }
+
+    /**
+     * Appends an unsigned variable-length integer.
+     *
+     * @param out   The buffer to write to.
+     * @param value The number, treated as unsigned.
+     * @return void This method does not return a value.
+     */
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @param in The buffer to read from.
+     * @return The number.
+     */
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Appends a signed integer, zigzag-encoded so small magnitudes take few bytes.
+     *
+     * @param out   The buffer to write to.
+     * @param value The number.
+     * @return void This method does not return a value.
+     */
+    static void putSigned(ByteBuffer out, int value) {
+        putVarLong(out, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads a signed integer written by {@link #putSigned}.
+     *
+     * @param in The buffer to read from.
+     * @return The number.
+     */
+    static int getSigned(ByteBuffer in) {
+        int bits = (int) getVarLong(in);
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+
+    /**
+     * Starts a message: leaves room for its length and writes its type.
+     *
+     * @param out  The buffer to write to.
+     * @param type The message type.
+     * @return The position of the length, to pass to {@link #end}.
+     */
+    static int begin(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.putInt(0);
+        out.put(type);
+        return start;
+    }
+
+    /**
+     * Finishes a message started with {@link #begin} by filling in its length.
+     *
+     * @param out   The buffer written to.
+     * @param start The position returned by {@link #begin}.
+     * @return void This method does not return a value.
+     */
+    static void end(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    /**
+     * Takes the next whole message off a buffer of received bytes.
+     *
+     * @param in The received bytes, ready for reading.
+     * @return A view of the message's type and body, or {@code null} if it has not fully arrived.
+     * @throws IllegalStateException If the message claims to be larger than {@link #MAX_MESSAGE}.
+     */
+    static ByteBuffer next(ByteBuffer in) {
+        if (in.remaining() < 4) {
+            return null;
+        }
+        int size = in.getInt(in.position());
+        if (size <= 0 || size > MAX_MESSAGE) {
+            throw new IllegalStateException("Bad message size " + size);
+        }
+        if (in.remaining() < 4 + size) {
+            return null;
+        }
+        ByteBuffer message = in.slice(in.position() + 4, size);
+        in.position(in.position() + 4 + size);
+        return message;
+    }
+}
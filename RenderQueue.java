@@ -0,0 +1,245 @@
+package game;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects draw commands and hands them to a {@link Graphics2D} grouped by color,
+ * so that a frame costs one fill and one outline per color rather than a color
+ * change and a primitive per object. Shapes of the same color are gathered into a
+ * single {@link Path2D}, which is filled or outlined in one call when the queue is
+ * flushed.
+ *
+ * Because batches are drawn by color, the queue only keeps two ordering rules: all
+ * fills are drawn before all outlines, and colors are drawn in the order they were
+ * first used since the last flush. Objects that cannot be batched are drawn
+ * afterwards, in the order they were queued, through their own
+ * {@link GameObject#draw(java.awt.Graphics, double)}.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class RenderQueue {
+    /** The colors used since the last flush, in the order they were first used. */
+    private final List<Material> materials = new ArrayList<>();
+
+    /** The number of materials in {@link #materials} used since the last flush. */
+    private int used;
+
+    /** Objects to draw one at a time after the batches. */
+    private final List<GameObject> direct = new ArrayList<>();
+
+    /** Where each object in {@link #direct} lies between ticks. */
+    private double[] directAlphas = new double[16];
+
+    /** Reused to add ovals to a batch. */
+    private final Ellipse2D.Float oval = new Ellipse2D.Float();
+
+    /** The number of fills and outlines issued by the last flush. */
+    private int drawCalls;
+
+    /**
+     * Queues a filled rectangle.
+     *
+     * @param color The color to fill with.
+     * @param x     The x-coordinate of the rectangle.
+     * @param y     The y-coordinate of the rectangle.
+     * @param w     The width of the rectangle.
+     * @param h     The height of the rectangle.
+     * @return void This method does not return a value.
+     */
+    public void fillRect(Color color, float x, float y, float w, float h) {
+        addRect(material(color).fill, x, y, w, h);
+    }
+
+    /**
+     * Queues the outline of a rectangle, covering the same pixels as {@link Graphics2D#drawRect}.
+     *
+     * @param color The color to outline with.
+     * @param x     The x-coordinate of the rectangle.
+     * @param y     The y-coordinate of the rectangle.
+     * @param w     The width of the rectangle.
+     * @param h     The height of the rectangle.
+     * @return void This method does not return a value.
+     */
+    public void drawRect(Color color, float x, float y, float w, float h) {
+        addRect(material(color).stroke, x, y, w, h);
+    }
+
+    /**
+     * Queues a filled oval.
+     *
+     * @param color The color to fill with.
+     * @param x     The x-coordinate of the oval's bounding box.
+     * @param y     The y-coordinate of the oval's bounding box.
+     * @param w     The width of the oval.
+     * @param h     The height of the oval.
+     * @return void This method does not return a value.
+     */
+    public void fillOval(Color color, float x, float y, float w, float h) {
+        oval.setFrame(x, y, w, h);
+        material(color).fill.append(oval, false);
+    }
+
+    /**
+     * Queues any filled shape.
+     *
+     * @param color The color to fill with.
+     * @param shape The shape to fill; it is copied, so it may be reused once this returns.
+     * @return void This method does not return a value.
+     */
+    public void fill(Color color, Shape shape) {
+        material(color).fill.append(shape, false);
+    }
+
+    /**
+     * Queues an object that draws itself, to be drawn after every batch.
+     *
+     * @param object The object to draw.
+     * @param alpha  How far the frame lies between the previous tick and the latest one.
+     * @return void This method does not return a value.
+     */
+    public void drawDirect(GameObject object, double alpha) {
+        if (direct.size() == directAlphas.length) {
+            directAlphas = Arrays.copyOf(directAlphas, directAlphas.length * 2);
+        }
+        directAlphas[direct.size()] = alpha;
+        direct.add(object);
+    }
+
+    /**
+     * Draws everything queued since the last flush and empties the queue.
+     *
+     * @param g The graphics context to draw on.
+     * @return void This method does not return a value.
+     */
+    public void flush(Graphics2D g) {
+        drawCalls = 0;
+
+        // Fills first, then outlines, one call per color
+        for (int i = 0; i < used; i++) {
+            Material material = materials.get(i);
+            if (material.fill.getCurrentPoint() != null) {
+                g.setColor(material.color);
+                g.fill(material.fill);
+                drawCalls++;
+            }
+        }
+        for (int i = 0; i < used; i++) {
+            Material material = materials.get(i);
+            if (material.stroke.getCurrentPoint() != null) {
+                g.setColor(material.color);
+                g.draw(material.stroke);
+                drawCalls++;
+            }
+        }
+
+        // Objects that draw themselves
+        for (int i = 0; i < direct.size(); i++) {
+            direct.get(i).draw(g, directAlphas[i]);
+            drawCalls++;
+        }
+
+        // Empty the queue, keeping the paths' storage for the next frame
+        for (int i = 0; i < used; i++) {
+            materials.get(i).clear();
+        }
+        used = 0;
+        direct.clear();
+    }
+
+    /**
+     * Gets the number of fills, outlines and direct draws issued by the last flush.
+     *
+     * @return The draw call count.
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Adds a rectangle to a batch.
+     *
+     * @param path The batch to add to.
+     * @param x    The x-coordinate of the rectangle.
+     * @param y    The y-coordinate of the rectangle.
+     * @param w    The width of the rectangle.
+     * @param h    The height of the rectangle.
+     * @return void This method does not return a value.
+     */
+    private void addRect(Path2D.Float path, float x, float y, float w, float h) {
+        path.moveTo(x, y);
+        path.lineTo(x + w, y);
+        path.lineTo(x + w, y + h);
+        path.lineTo(x, y + h);
+        path.closePath();
+    }
+
+    /**
+     * Finds the batch for a color, starting one if the color has not been used since
+     * the last flush. Frames use only a handful of colors, so a linear search is enough.
+     *
+     * @param color The color.
+     * @return The batch for the color.
+     */
+    private Material material(Color color) {
+        for (int i = 0; i < used; i++) {
+            Material material = materials.get(i);
+            if (material.color.equals(color)) {
+                return material;
+            }
+        }
+
+        // Reuse a batch left over from an earlier frame if there is one
+        Material material;
+        if (used < materials.size()) {
+            material = materials.get(used);
+            material.color = color;
+        } else {
+            material = new Material(color);
+            materials.add(material);
+        }
+        used++;
+        return material;
+    }
+
+    /**
+     * The shapes queued with one color.
+     */
+    private static final class Material {
+        /** The color of the batch. */
+        private Color color;
+
+        /** The shapes to fill. */
+        private final Path2D.Float fill = new Path2D.Float(Path2D.WIND_NON_ZERO, 1024);
+
+        /** The shapes to outline. */
+        private final Path2D.Float stroke = new Path2D.Float(Path2D.WIND_NON_ZERO, 1024);
+
+        /**
+         * Constructs an empty batch.
+         *
+         * @param color The color of the batch.
+         * @return void This constructor does not return a value.
+         */
+        private Material(Color color) {
+            this.color = color;
+        }
+
+        /**
+         * Empties the batch.
+         *
+         * @return void This method does not return a value.
+         */
+        private void clear() {
+            fill.reset();
+            stroke.reset();
+        }
+    }
+}
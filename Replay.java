@@ -0,0 +1,271 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recording of the input fed to a {@link World}, one entry per tick, that can be
+ * saved to a compact binary file and played back into a fresh world. Because the
+ * world is deterministic, playing a replay back reproduces the recorded session
+ * exactly, and the final score and {@link World#checksum()} stored with it tell
+ * whether it still does.
+ *
+ * Only the ticks where the input changes are stored. The file holds, in order:
+ * the magic {@code "BBRP"}, a format version byte, the field width and height,
+ * the number of ticks, the number of input changes, each change as the ticks since
+ * the previous change followed by the new input byte, and finally the recorded
+ * score and checksum. Counts are unsigned variable-length integers of 7 bits per byte.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Replay {
+    /** The bytes {@code "BBRP"} that start every replay file. */
+    private static final int MAGIC = 0x42425250;
+
+    /** The version of the file format written by this class; bumped whenever the simulation plays differently. */
+    private static final int VERSION = 2;
+
+    /** The width of the recorded world. */
+    private final int width;
+
+    /** The height of the recorded world. */
+    private final int height;
+
+    /** The tick at which each input change happens. */
+    private long[] changeTicks = new long[16];
+
+    /** The input from each change onwards. */
+    private byte[] changeInputs = new byte[16];
+
+    /** The number of input changes. */
+    private int changes;
+
+    /** The number of ticks recorded. */
+    private long ticks;
+
+    /** The score the world had when the recording finished. */
+    private int finalScore;
+
+    /** The world's checksum when the recording finished. */
+    private long finalChecksum;
+
+    /**
+     * Constructs an empty replay for a world of the given size.
+     *
+     * @param width  The width of the recorded world.
+     * @param height The height of the recorded world.
+     * @return void This constructor does not return a value.
+     */
+    public Replay(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Records the input of the next tick.
+     *
+     * @param input The input passed to {@link World#tick(int)}.
+     * @return void This method does not return a value.
+     */
+    public void record(int input) {
+        if (changes == 0 ? input != 0 : input != changeInputs[changes - 1]) {
+            if (changes == changeTicks.length) {
+                changeTicks = Arrays.copyOf(changeTicks, changes * 2);
+                changeInputs = Arrays.copyOf(changeInputs, changes * 2);
+            }
+            changeTicks[changes] = ticks;
+            changeInputs[changes] = (byte) input;
+            changes++;
+        }
+        ticks++;
+    }
+
+    /**
+     * Stores the outcome of the recorded session so that playback can be checked against it.
+     *
+     * @param world The world the recorded input was fed to.
+     * @return void This method does not return a value.
+     */
+    public void finish(World world) {
+        finalScore = world.getScore();
+        finalChecksum = world.checksum();
+    }
+
+    /**
+     * Plays the recorded input into a fresh world as fast as possible.
+     *
+     * @return The world after the last recorded tick.
+     */
+    public World play() {
+        World world = new World(width, height);
+        int next = 0;
+        int input = 0;
+        for (long tick = 0; tick < ticks; tick++) {
+            while (next < changes && changeTicks[next] == tick) {
+                input = changeInputs[next++];
+            }
+            world.tick(input);
+        }
+        return world;
+    }
+
+    /**
+     * Checks whether a played-back world ended the way the recording did.
+     *
+     * @param world The world returned by {@link #play()}.
+     * @return {@code true} if the score and checksum match the recording, otherwise {@code false}.
+     */
+    public boolean matches(World world) {
+        return world.getScore() == finalScore && world.checksum() == finalChecksum;
+    }
+
+    /**
+     * Gets the number of ticks recorded.
+     *
+     * @return The tick count.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the score the world had when the recording finished.
+     *
+     * @return The recorded final score.
+     */
+    public int getFinalScore() {
+        return finalScore;
+    }
+
+    /**
+     * Saves the replay to a file.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     * @return void This method does not return a value.
+     */
+    public void write(Path path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path)) {
+            write(file);
+        }
+    }
+
+    /**
+     * Writes the replay to a stream.
+     *
+     * @param stream The stream to write to; it is flushed but not closed.
+     * @throws IOException If the stream cannot be written.
+     * @return void This method does not return a value.
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, width);
+        writeVarLong(out, height);
+        writeVarLong(out, ticks);
+        writeVarLong(out, changes);
+        long previous = 0;
+        for (int i = 0; i < changes; i++) {
+            writeVarLong(out, changeTicks[i] - previous);
+            out.writeByte(changeInputs[i]);
+            previous = changeTicks[i];
+        }
+        writeVarLong(out, finalScore);
+        out.writeLong(finalChecksum);
+        out.flush();
+    }
+
+    /**
+     * Loads a replay from a file.
+     *
+     * @param path The file to read.
+     * @return The loaded replay.
+     * @throws IOException If the file cannot be read or is not a replay.
+     */
+    public static Replay read(Path path) throws IOException {
+        try (InputStream file = Files.newInputStream(path)) {
+            return read(file);
+        }
+    }
+
+    /**
+     * Reads a replay from a stream.
+     *
+     * @param stream The stream to read from; it is not closed.
+     * @return The loaded replay.
+     * @throws IOException If the stream cannot be read or does not hold a replay.
+     */
+    public static Replay read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        int version = in.readUnsignedByte();
+        if (version < VERSION) {
+            throw new IOException("Replay version " + version + " was recorded by an older game that plays differently");
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        Replay replay = new Replay((int) readVarLong(in), (int) readVarLong(in));
+        replay.ticks = readVarLong(in);
+        int changes = (int) readVarLong(in);
+        replay.changeTicks = new long[Math.max(1, changes)];
+        replay.changeInputs = new byte[Math.max(1, changes)];
+        long tick = 0;
+        for (int i = 0; i < changes; i++) {
+            tick += readVarLong(in);
+            replay.changeTicks[i] = tick;
+            replay.changeInputs[i] = in.readByte();
+        }
+        replay.changes = changes;
+        replay.finalScore = (int) readVarLong(in);
+        replay.finalChecksum = in.readLong();
+        return replay;
+    }
+
+    /**
+     * Writes a non-negative number in as few bytes as it needs, 7 bits at a time.
+     *
+     * @param out   The stream to write to.
+     * @param value The number to write.
+     * @throws IOException If the stream cannot be written.
+     * @return void This method does not return a value.
+     */
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarLong}.
+     *
+     * @param in The stream to read from.
+     * @return The number read.
+     * @throws IOException If the stream cannot be read.
+     */
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in replay");
+    }
+}
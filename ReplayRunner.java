@@ -0,0 +1,81 @@
+package game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Plays recorded {@link Replay} files back through headless worlds as fast as possible,
+ * several at a time, and checks that each one still ends with its recorded score and
+ * checksum. Intended as a regression and load test over large sets of recorded sessions.
+ *
+ * Run with {@code java -Djava.awt.headless=true game.ReplayRunner <file or directory>...};
+ * directories are searched for {@code .bbrp} files. The exit status is {@code 1} if any
+ * replay no longer matches or cannot be read.
+ *
+ * @author Team
+ * @version 1.0
+ */
+public class ReplayRunner {
+    /** The file extension of replay files. */
+    static final String EXTENSION = ".bbrp";
+
+    /**
+     * Plays back every replay given on the command line.
+     *
+     * @param args Replay files, or directories holding them.
+     * @throws IOException If a directory cannot be listed.
+     * @return void This method does not return a value.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(p -> p.toString().endsWith(EXTENSION)).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        long start = System.nanoTime();
+        String[] results = new String[files.size()];
+        long[] ticks = new long[files.size()];
+        boolean[] passed = new boolean[files.size()];
+        IntStream.range(0, files.size()).parallel().forEach(i -> {
+            try {
+                Replay replay = Replay.read(files.get(i));
+                World world = replay.play();
+                ticks[i] = replay.getTicks();
+                passed[i] = replay.matches(world);
+                results[i] = String.format("%s %s ticks=%d score=%d expected=%d",
+                        passed[i] ? "OK      " : "MISMATCH", files.get(i), replay.getTicks(),
+                        world.getScore(), replay.getFinalScore());
+            } catch (IOException e) {
+                results[i] = "ERROR    " + files.get(i) + " " + e.getMessage();
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        int failures = 0;
+        long totalTicks = 0;
+        for (int i = 0; i < results.length; i++) {
+            System.out.println(results[i]);
+            failures += passed[i] ? 0 : 1;
+            totalTicks += ticks[i];
+        }
+        System.out.printf("%d replays, %d failed, %d ticks in %.2f s (%.0f ticks/s)%n",
+                results.length, failures, totalTicks, elapsed / 1e9, totalTicks * 1e9 / Math.max(1, elapsed));
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
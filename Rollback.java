@@ -0,0 +1,255 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Plays a multiplayer {@link World} without waiting for remote players' input, in
+ * the manner of rollback netcode. The local player's input is applied at once;
+ * every remote player is predicted to hold whatever input they last sent. When a
+ * remote input arrives for a tick already played and differs from the prediction,
+ * the world is put back to its state before that tick and the ticks since are
+ * played again with the corrected inputs, before the next tick is played.
+ *
+ * Frames count the ticks played through this object, independently of the
+ * world's own tick counter, which restarts with every round. A {@link Snapshot}
+ * of the world is kept for each of the last {@code window} frames, so input up to
+ * that many frames late can still be taken back. {@link #canAdvance()} tells the
+ * caller when a remote player has fallen so far behind that it must wait for them.
+ *
+ * Remote input must arrive in order and for every frame, one message per frame,
+ * as it would over a reliable stream. Late inputs that arrive between two frames
+ * are merged into one re-simulation from the earliest of them. A restart is
+ * never predicted, only applied once it is confirmed. Re-simulated ticks destroy
+ * bricks again, so brick destroy listeners hear from them more than once.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Rollback {
+    /** Marks that no re-simulation is pending. */
+    private static final long NONE = Long.MAX_VALUE;
+
+    /** The world being played. */
+    private final World world;
+
+    /** The index of the player whose input is known as soon as it is made. */
+    private final int localPlayer;
+
+    /** The number of frames whose state is kept. */
+    private final int window;
+
+    /** The world before each of the last {@link #window} frames, by frame modulo the window. */
+    private final Snapshot[] states;
+
+    /** The inputs of every player for each frame, by frame modulo twice the window. */
+    private final int[][] inputs;
+
+    /** The last frame each player's input is known for, or {@code -1}. */
+    private final long[] confirmed;
+
+    /** Each player's input for their last known frame. */
+    private final int[] lastInput;
+
+    /** The next frame to play. */
+    private long frame;
+
+    /** The earliest frame that was played with a wrong prediction, or {@link #NONE}. */
+    private long rollbackFrom = NONE;
+
+    /** The number of times the world was rolled back. */
+    private long rollbacks;
+
+    /** The number of ticks played again after rolling back. */
+    private long resimulated;
+
+    /**
+     * Constructs a rollback layer over a world, starting from its current state.
+     *
+     * @param world       The world to play, with one paddle per player.
+     * @param localPlayer The index of the local player.
+     * @param window      How many frames late remote input may arrive.
+     * @return void This constructor does not return a value.
+     */
+    Rollback(World world, int localPlayer, int window) {
+        int players = world.getPaddles().size();
+        if (localPlayer < 0 || localPlayer >= players || window < 1) {
+            throw new IllegalArgumentException("Bad player or window");
+        }
+        this.world = world;
+        this.localPlayer = localPlayer;
+        this.window = window;
+        this.states = new Snapshot[window];
+        for (int i = 0; i < window; i++) {
+            states[i] = new Snapshot();
+        }
+        this.inputs = new int[window * 2][players];
+        this.confirmed = new long[players];
+        this.lastInput = new int[players];
+        Arrays.fill(confirmed, -1);
+    }
+
+    /**
+     * Records a remote player's input for a frame. If the frame was already played
+     * with a different prediction, it and every later frame will be played again
+     * before the next frame.
+     *
+     * @param player  The index of the remote player.
+     * @param inFrame The frame the input is for; must follow the player's last one.
+     * @param input   The player's input bits for that frame.
+     * @throws IllegalArgumentException If the input is out of order, for the local
+     *                                  player, or more than a window ahead.
+     * @return void This method does not return a value.
+     */
+    public void addRemoteInput(int player, long inFrame, int input) {
+        if (player == localPlayer || inFrame != confirmed[player] + 1) {
+            throw new IllegalArgumentException("Input for player " + player + " out of order at frame " + inFrame);
+        }
+        if (inFrame >= frame + window) {
+            throw new IllegalArgumentException("Input for frame " + inFrame + " is too far ahead");
+        }
+        confirmed[player] = inFrame;
+        lastInput[player] = input;
+        if (inFrame >= frame) {
+            inputs[slot(inFrame)][player] = input;
+            return;
+        }
+
+        // Correct the prediction for this frame and the ones played after it
+        if (inputs[slot(inFrame)][player] != input) {
+            rollbackFrom = Math.min(rollbackFrom, inFrame);
+        }
+        inputs[slot(inFrame)][player] = input;
+        int predicted = predict(input);
+        for (long f = inFrame + 1; f < frame; f++) {
+            if (inputs[slot(f)][player] != predicted) {
+                inputs[slot(f)][player] = predicted;
+                rollbackFrom = Math.min(rollbackFrom, f);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the next frame can be played without losing the state a late
+     * input might need to roll back to.
+     *
+     * @return Whether {@link #advance} may be called.
+     */
+    public boolean canAdvance() {
+        return frame - getConfirmedFrame() <= window;
+    }
+
+    /**
+     * Corrects any mispredicted frames, then plays the next frame with the local
+     * player's input and a prediction for every remote player not yet heard from.
+     *
+     * @param localInput The local player's input bits.
+     * @throws IllegalStateException If a remote player is a whole window behind.
+     * @return void This method does not return a value.
+     */
+    public void advance(int localInput) {
+        if (!canAdvance()) {
+            throw new IllegalStateException("Waiting for remote input for frame " + (getConfirmedFrame() + 1));
+        }
+        resimulate();
+
+        // Fill in this frame's inputs
+        int[] row = inputs[slot(frame)];
+        for (int p = 0; p < row.length; p++) {
+            if (p == localPlayer) {
+                row[p] = localInput;
+                confirmed[p] = frame;
+                lastInput[p] = localInput;
+            } else if (confirmed[p] < frame) {
+                row[p] = predict(lastInput[p]);
+            }
+        }
+        states[(int) (frame % window)].captureFrom(world);
+        world.tick(row);
+        frame++;
+    }
+
+    /**
+     * Gets the next frame to play.
+     *
+     * @return The number of frames played.
+     */
+    public long getFrame() {
+        return frame;
+    }
+
+    /**
+     * Gets the last frame every player's input is known for; the world up to it
+     * will not change again.
+     *
+     * @return The last confirmed frame, or {@code -1} if none is.
+     */
+    public long getConfirmedFrame() {
+        long oldest = frame - 1;
+        for (int p = 0; p < confirmed.length; p++) {
+            if (p != localPlayer) {
+                oldest = Math.min(oldest, confirmed[p]);
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Gets the number of times the world was rolled back.
+     *
+     * @return The rollback count.
+     */
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    /**
+     * Gets the number of ticks played again after rolling back.
+     *
+     * @return The re-simulated tick count.
+     */
+    public long getResimulatedTicks() {
+        return resimulated;
+    }
+
+    /**
+     * Puts the world back before the earliest mispredicted frame and plays every
+     * frame since with the inputs as now known, keeping the states along the way.
+     *
+     * @return void This method does not return a value.
+     */
+    private void resimulate() {
+        if (rollbackFrom == NONE) {
+            return;
+        }
+        states[(int) (rollbackFrom % window)].restoreTo(world);
+        for (long f = rollbackFrom; f < frame; f++) {
+            if (f > rollbackFrom) {
+                states[(int) (f % window)].captureFrom(world);
+            }
+            world.tick(inputs[slot(f)]);
+        }
+        rollbacks++;
+        resimulated += frame - rollbackFrom;
+        rollbackFrom = NONE;
+    }
+
+    /**
+     * Guesses a remote player's input for a frame not heard from yet.
+     *
+     * @param last The player's last known input.
+     * @return The same input without a restart.
+     */
+    private static int predict(int last) {
+        return last & ~World.INPUT_RESTART;
+    }
+
+    /**
+     * Finds where a frame's inputs are kept.
+     *
+     * @param inFrame The frame.
+     * @return The index into {@link #inputs}.
+     */
+    private int slot(long inFrame) {
+        return (int) (inFrame % inputs.length);
+    }
+}
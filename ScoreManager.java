@@ -0,0 +1,50 @@
+package game;
+
+/**
+ * Manages the player's score, allowing for additions and resets.
+ * 
+ * @author Team
+ * @version 1.0
+ */
+class ScoreManager {
+    /** The player's current score. */
+    private int score = 0;
+
+    /**
+     * Adds points to the score.
+     * 
+     * @param points The number of points to add.
+     * @return void This method does not return a value.
+     */
+    public void addScore(int points) {
+        score += points;
+    }
+
+    /**
+     * Retrieves the player's current score.
+     * 
+     * @return The current score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the score, as when restoring a saved game.
+     * 
+     * @param points The new score.
+     * @return void This method does not return a value.
+     */
+    public void setScore(int points) {
+        score = points;
+    }
+
+    /**
+     * Resets the player's score to zero.
+     * 
+     * @return void This method does not return a value.
+     */
+    public void resetScore() {
+        score = 0;
+    }
+}
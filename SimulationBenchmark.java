@@ -0,0 +1,366 @@
+package game;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the headless simulation on boards of increasing size, without opening a window.
+ * For each board and ball count it reports whole-world ticks per second and the bytes the
+ * ticking thread allocated per tick, and for each board the cost of one collision pass
+ * (a grid query around a ball plus a sweep against every candidate brick). Every measurement
+ * is preceded by a warm-up run so the JIT has compiled the hot paths before timing starts.
+ * With more than one ball, balls are moved on the common {@link ForkJoinPool}.
+ *
+ * Finally, for each board it measures {@link Rollback} at its worst: a two-player
+ * match whose remote input always arrives the given number of ticks late and never
+ * matches the prediction, so that every frame rolls back and re-simulates that many
+ * ticks before playing the next one. The cost of such a frame is reported next to
+ * the share of a 60 Hz frame it takes.
+ *
+ * Last, it measures a {@link ParticleSystem} kept at the given number of particles:
+ * one update on the common pool and one render into an 800x600 raster per frame,
+ * reported against a 120 Hz frame.
+ *
+ * Run with {@code java -Djava.awt.headless=true game.SimulationBenchmark [bricks...] [--balls=n,...]
+ * [--rollback=n,...] [--particles=n,...]}; the default boards hold 50, 5,000 and 500,000 bricks,
+ * are played with 1, 64 and 512 balls, and are rolled back 10 and 30 ticks, and the particle
+ * system holds 100,000 particles.
+ *
+ * @author Team
+ * @version 1.0
+ */
+public class SimulationBenchmark {
+    /** The width of every benchmark board. */
+    private static final int WIDTH = 800;
+
+    /** How long each warm-up runs, in nanoseconds. */
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    /** How long each measurement runs, in nanoseconds. */
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    /** The time a frame may take at 60 frames per second, in nanoseconds. */
+    private static final double FRAME_NANOS = 1e9 / 60;
+
+    /** The time a frame may take at 120 frames per second, in nanoseconds. */
+    private static final double FAST_FRAME_NANOS = 1e9 / 120;
+
+    /** The height of the raster particles are rendered into. */
+    private static final int HEIGHT = 600;
+
+    /** The diameter of the ball used for the collision pass. */
+    private static final int BALL_DIAMETER = 15;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The board sizes to measure, in bricks, and optionally {@code --balls=},
+     *             {@code --rollback=} and {@code --particles=} followed by comma-separated ball
+     *             counts, rollback depths and particle counts.
+     * @return void This method does not return a value.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int[] sizes = {50, 5_000, 500_000};
+        int[] ballCounts = {1, 64, 512};
+        int[] depths = {10, 30};
+        int[] particleCounts = {100_000};
+        int sizeCount = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--balls=")) {
+                ballCounts = parseList(arg.substring("--balls=".length()));
+            } else if (arg.startsWith("--rollback=")) {
+                depths = parseList(arg.substring("--rollback=".length()));
+            } else if (arg.startsWith("--particles=")) {
+                particleCounts = parseList(arg.substring("--particles=".length()));
+            } else {
+                if (sizeCount == 0) {
+                    sizes = new int[args.length];
+                }
+                sizes[sizeCount++] = Integer.parseInt(arg);
+            }
+        }
+        if (sizeCount > 0) {
+            sizes = Arrays.copyOf(sizes, sizeCount);
+        }
+
+        System.out.printf("%10s %8s %14s %12s %16s %14s%n",
+                "bricks", "balls", "ticks/s", "ns/tick", "collision ns", "bytes/tick");
+        for (int size : sizes) {
+            World world = board(size);
+            runCollisionPasses(world, WARMUP_NANOS);
+            long[] passes = runCollisionPasses(world, MEASURE_NANOS);
+
+            for (int ballCount : ballCounts) {
+                world = board(size);
+                world.setPool(ballCount > 1 ? ForkJoinPool.commonPool() : null);
+                runTicks(world, ballCount, WARMUP_NANOS);
+                long allocated = Metrics.allocatedBytes();
+                long[] measured = runTicks(world, ballCount, MEASURE_NANOS);
+                allocated = Metrics.allocatedBytes() - allocated;
+
+                System.out.printf("%10d %8d %14.0f %12.1f %16.1f %14.2f%n",
+                        size,
+                        ballCount,
+                        measured[0] * 1e9 / measured[1],
+                        (double) measured[1] / measured[0],
+                        (double) passes[1] / passes[0],
+                        allocated < 0 ? Double.NaN : (double) allocated / measured[0]);
+            }
+        }
+
+        System.out.printf("%n%10s %8s %14s %14s %14s%n", "bricks", "rollback", "us/frame", "% of frame", "ticks/s");
+        for (int size : sizes) {
+            for (int depth : depths) {
+                runRollbacks(board(size, 2), depth, WARMUP_NANOS);
+                long[] measured = runRollbacks(board(size, 2), depth, MEASURE_NANOS);
+                double frameNanos = (double) measured[1] / measured[0];
+                System.out.printf("%10d %8d %14.1f %14.2f %14.0f%n",
+                        size,
+                        depth,
+                        frameNanos / 1e3,
+                        frameNanos * 100 / FRAME_NANOS,
+                        measured[0] * (depth + 1) * 1e9 / measured[1]);
+            }
+        }
+
+        System.out.printf("%n%10s %14s %14s %14s%n", "particles", "update us", "render us", "% of frame");
+        for (int particleCount : particleCounts) {
+            runParticles(particleCount, WARMUP_NANOS);
+            long[] measured = runParticles(particleCount, MEASURE_NANOS);
+            System.out.printf("%10d %14.1f %14.1f %14.2f%n",
+                    particleCount,
+                    measured[1] / 1e3 / measured[0],
+                    measured[2] / 1e3 / measured[0],
+                    (measured[1] + measured[2]) * 100.0 / measured[0] / FAST_FRAME_NANOS);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of numbers.
+     *
+     * @param list The list.
+     * @return The numbers.
+     */
+    private static int[] parseList(String list) {
+        String[] items = list.split(",");
+        int[] numbers = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            numbers[i] = Integer.parseInt(items[i]);
+        }
+        return numbers;
+    }
+
+    /**
+     * Builds a world whose board holds the given number of bricks. Bricks shrink as the
+     * count grows so that every board spans the same width, and the world grows taller
+     * to fit the rows.
+     *
+     * @param count The number of bricks.
+     * @return The new world.
+     */
+    static World board(int count) {
+        return board(count, 1);
+    }
+
+    /**
+     * Builds a world as {@link #board(int)} does, with a paddle for each player.
+     *
+     * @param count   The number of bricks.
+     * @param players The number of players.
+     * @return The new world.
+     */
+    static World board(int count, int players) {
+        int cols = Math.min(200, 10 * (int) Math.ceil(Math.sqrt(count / 50.0)));
+        int pitch = WIDTH / cols;
+        int gap = pitch >= 10 ? 5 : 1;
+        int brickWidth = pitch - gap;
+        int brickHeight = Math.max(1, brickWidth * 20 / 75);
+        int rows = (count + cols - 1) / cols;
+
+        BrickField bricks = new BrickField(count);
+        for (int i = 0; i < count; i++) {
+            bricks.add((i % cols) * pitch, (i / cols) * (brickHeight + gap), brickWidth, brickHeight);
+        }
+        return new World(WIDTH, rows * (brickHeight + gap) + 400, bricks, players);
+    }
+
+    /**
+     * Steers the paddle under the ball, so that rounds last long enough to measure.
+     *
+     * @param world The world being played.
+     * @return The input that moves the paddle towards the ball.
+     */
+    static int autopilot(World world) {
+        Paddle paddle = world.getPaddle();
+        Ball ball = world.getLowestBall();
+        if (ball == null) {
+            return 0;
+        }
+        double target = ball.getX() + BALL_DIAMETER / 2.0;
+        double center = paddle.x + paddle.width / 2.0;
+        if (target < center - paddle.speed) {
+            return World.INPUT_LEFT;
+        }
+        if (target > center + paddle.speed) {
+            return World.INPUT_RIGHT;
+        }
+        return 0;
+    }
+
+    /**
+     * Ticks the world for roughly the given time, restarting it whenever a round ends
+     * and serving new balls whenever fewer than the given number are in play.
+     *
+     * @param world     The world to tick.
+     * @param ballCount The number of balls to keep in play.
+     * @param duration  How long to run, in nanoseconds.
+     * @return The number of ticks run and the nanoseconds they took.
+     */
+    private static long[] runTicks(World world, int ballCount, long duration) {
+        long ticks = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1_000; i++) {
+                if (world.getState() != World.State.RUNNING) {
+                    world.restart();
+                }
+                for (int b = world.getBalls().size(); b < ballCount; b++) {
+                    world.spawnBall(20 + (b * 37) % (WIDTH - 40), world.getHeight() - 200,
+                            b % 2 == 0 ? 6 : -6, -6);
+                }
+                world.tick(autopilot(world));
+            }
+            ticks += 1_000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < duration);
+        return new long[] {ticks, elapsed};
+    }
+
+    /**
+     * Plays a two-player world through {@link Rollback} for roughly the given time,
+     * as the first player with the second player's input arriving the given number
+     * of ticks late. The second player switches direction every tick, so every late
+     * input differs from the prediction and every frame rolls back that many ticks.
+     *
+     * @param world    The world to play, with two paddles.
+     * @param depth    How many ticks late the remote input arrives.
+     * @param duration How long to run, in nanoseconds.
+     * @return The number of frames played and the nanoseconds they took.
+     */
+    private static long[] runRollbacks(World world, int depth, long duration) {
+        Rollback rollback = new Rollback(world, 0, depth);
+        for (int i = 0; i < depth; i++) {
+            rollback.advance(autopilot(world));
+        }
+
+        long frames = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                long late = rollback.getFrame() - depth;
+                rollback.addRemoteInput(1, late, late % 2 == 0 ? World.INPUT_LEFT : World.INPUT_RIGHT);
+                rollback.advance(world.getState() == World.State.RUNNING ? autopilot(world) : World.INPUT_RESTART);
+            }
+            frames += 100;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < duration);
+        if (rollback.getResimulatedTicks() != frames * depth) {
+            throw new IllegalStateException("Expected every frame to roll back");
+        }
+        return new long[] {frames, elapsed};
+    }
+
+    /**
+     * Updates and renders a particle system at 120 frames per second of game time for
+     * roughly the given time, topping it up to the given number of particles before
+     * every frame with bursts spread over the raster.
+     *
+     * @param particleCount The number of particles to keep alive.
+     * @param duration      How long to run, in nanoseconds.
+     * @return The number of frames run and the nanoseconds spent updating and rendering.
+     */
+    private static long[] runParticles(int particleCount, long duration) {
+        ParticleSystem particles = new ParticleSystem(particleCount);
+        int[] pixels = new int[WIDTH * HEIGHT];
+        DirtyRegion region = new DirtyRegion(WIDTH, HEIGHT);
+        int bursts = 0;
+
+        long frames = 0;
+        long updating = 0;
+        long rendering = 0;
+        long start = System.nanoTime();
+        do {
+            for (int i = 0; i < 100; i++) {
+                while (particles.size() < particleCount) {
+                    bursts++;
+                    particles.burst((bursts * 97) % WIDTH, (bursts * 61) % HEIGHT, 20, 8, 0xFF8000, 32);
+                }
+                long t0 = System.nanoTime();
+                particles.update(1f / 120, ForkJoinPool.commonPool());
+                long t1 = System.nanoTime();
+                region.clear();
+                particles.render(pixels, WIDTH, HEIGHT, 0, 0, region);
+                rendering += System.nanoTime() - t1;
+                updating += t1 - t0;
+            }
+            frames += 100;
+        } while (System.nanoTime() - start < duration);
+        return new long[] {frames, updating, rendering};
+    }
+
+    /**
+     * Repeats the ball's collision pass at pseudo-random spots over the board for
+     * roughly the given time, without changing the board.
+     *
+     * @param world    The world whose board is tested.
+     * @param duration How long to run, in nanoseconds.
+     * @return The number of passes run and the nanoseconds they took.
+     */
+    private static long[] runCollisionPasses(World world, long duration) {
+        BrickField bricks = world.getBricks();
+        ChunkedGrid grid = world.getGrid();
+        Contact contact = new Contact();
+        int[] candidates = new int[256];
+        double radius = BALL_DIAMETER / 2.0;
+        int boardHeight = world.getHeight() - 400;
+        long seed = 42;
+        long hits = 0;
+
+        long passes = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1_000; i++) {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                double cx = (seed >>> 33) % WIDTH;
+                double cy = (seed >>> 13 & 0xFFFFF) % Math.max(1, boardHeight);
+                grid.activate((int) (cx - radius - 6), (int) (cy - radius - 6),
+                        (int) (cx + radius + 6), (int) (cy + radius + 6));
+                int found = grid.query((int) (cx - radius - 6), (int) (cy - radius - 6),
+                        (int) (cx + radius + 6), (int) (cy + radius + 6), candidates);
+                if (found > candidates.length) {
+                    candidates = new int[Integer.highestOneBit(found) << 1];
+                    found = grid.query((int) (cx - radius - 6), (int) (cy - radius - 6),
+                            (int) (cx + radius + 6), (int) (cy + radius + 6), candidates);
+                }
+                contact.reset(1);
+                for (int k = 0; k < found; k++) {
+                    int b = candidates[k];
+                    Sweep.circleVsBox(cx, cy, radius, 6, -6, bricks.getX(b), bricks.getY(b),
+                            bricks.getX(b) + bricks.getWidth(b), bricks.getY(b) + bricks.getHeight(b),
+                            Contact.BRICK, b, contact);
+                }
+                hits += contact.kind;
+            }
+            passes += 1_000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < duration);
+        if (hits == Long.MIN_VALUE) {
+            System.out.println(hits);
+        }
+        return new long[] {passes, elapsed};
+    }
+}
@@ -0,0 +1,330 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The complete state of a {@link World} at one tick, packed into a compact byte
+ * buffer that can be restored into the same world, or any world built from the
+ * same board, to carry on exactly as it would have. Snapshots serve instant
+ * restarts, checkpoints and rolling back predicted ticks.
+ *
+ * The board's layout is not stored, only what changes while playing: the round's
+ * state, tick and score, the paddle, every ball, and which bricks are standing.
+ * The buffer holds, in order: a version byte, the field width and height and the
+ * number of bricks (to catch restoring into a different board), the state, tick
+ * and score, the number of paddles and each one's current and previous
+ * x-coordinates, the number of balls
+ * and each ball's position, speed and previous position as raw doubles, and
+ * finally the bricks.
+ *
+ * The bricks are stored against the board as it starts, with every brick
+ * standing: either as the lengths of alternating runs of standing and destroyed
+ * bricks, or as the raw liveness bitmap, whichever is smaller. A fresh or nearly
+ * cleared board of millions of bricks takes a few bytes; a board broken up
+ * everywhere takes at most one bit per brick. Counts and runs are unsigned
+ * variable-length integers of 7 bits per byte, as in {@link Replay}.
+ *
+ * Capturing into an existing snapshot reuses its buffer, so a ring of snapshots
+ * stops allocating once its buffers are large enough.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class Snapshot {
+    /** The version of the buffer layout. */
+    private static final int VERSION = 2;
+
+    /** Marks bricks stored as runs of standing and destroyed bricks. */
+    private static final int RUNS = 0;
+
+    /** Marks bricks stored as the raw liveness bitmap. */
+    private static final int BITMAP = 1;
+
+    /** The packed state; the first {@link #length} bytes are used. */
+    private byte[] data = new byte[64];
+
+    /** The number of bytes used in {@link #data}. */
+    private int length;
+
+    /** The next byte to read while restoring. */
+    private int position;
+
+    /**
+     * Captures the state of a world in a new snapshot.
+     *
+     * @param world The world to capture.
+     * @return The snapshot.
+     */
+    public static Snapshot capture(World world) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.captureFrom(world);
+        return snapshot;
+    }
+
+    /**
+     * Reads a snapshot from bytes written by {@link #toByteArray()}.
+     *
+     * @param bytes The packed state.
+     * @return The snapshot.
+     */
+    public static Snapshot fromByteArray(byte[] bytes) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.data = bytes.clone();
+        snapshot.length = bytes.length;
+        return snapshot;
+    }
+
+    /**
+     * Replaces this snapshot with the state of a world, reusing the buffer.
+     *
+     * @param world The world to capture.
+     * @return void This method does not return a value.
+     */
+    public void captureFrom(World world) {
+        length = 0;
+        BrickField bricks = world.getBricks();
+        putVarLong(VERSION);
+        putVarLong(world.getWidth());
+        putVarLong(world.getHeight());
+        putVarLong(bricks.size());
+
+        // Round, paddle and balls
+        putVarLong(world.getState().ordinal());
+        putVarLong(world.getTick());
+        putVarLong(world.getScore());
+        putVarLong(world.getPaddles().size());
+        for (Paddle paddle : world.getPaddles()) {
+            putVarLong(zigzag(paddle.x));
+            putVarLong(zigzag(paddle.getPrevX()));
+        }
+        putVarLong(world.getBalls().size());
+        for (Ball ball : world.getBalls()) {
+            putDouble(ball.getX());
+            putDouble(ball.getY());
+            putDouble(ball.getDx());
+            putDouble(ball.getDy());
+            putDouble(ball.getPrevX());
+            putDouble(ball.getPrevY());
+        }
+
+        // Bricks as runs, unless the bitmap turns out smaller
+        int start = length;
+        int bitmapBytes = (bricks.size() + 7) >>> 3;
+        putVarLong(RUNS);
+        boolean standing = true;
+        for (int i = 0; i < bricks.size() && length - start <= bitmapBytes + 1; standing = !standing) {
+            int next = nextChange(bricks, i, standing);
+            putVarLong(next - i);
+            i = next;
+        }
+        if (length - start > bitmapBytes + 1) {
+            length = start;
+            putVarLong(BITMAP);
+            ensure(bitmapBytes);
+            for (int b = 0; b < bitmapBytes; b++) {
+                data[length++] = (byte) (bricks.liveWord(b >>> 3) >>> ((b & 7) << 3));
+            }
+        }
+    }
+
+    /**
+     * Puts a world back in the captured state. The world must play the same board
+     * it was captured from; its obstacles and chunk cache are left as they are, and
+     * no destroy events are sent for bricks that were standing and are not any more.
+     *
+     * @param world The world to restore.
+     * @throws IllegalArgumentException If the world's board is not the one captured.
+     * @return void This method does not return a value.
+     */
+    public void restoreTo(World world) {
+        position = 0;
+        BrickField bricks = world.getBricks();
+        if (getVarLong() != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version");
+        }
+        if (getVarLong() != world.getWidth() || getVarLong() != world.getHeight() || getVarLong() != bricks.size()) {
+            throw new IllegalArgumentException("Snapshot is of a different board");
+        }
+
+        // Round, paddle and balls
+        World.State state = World.State.values()[(int) getVarLong()];
+        long tick = getVarLong();
+        int score = (int) getVarLong();
+        if (getVarLong() != world.getPaddles().size()) {
+            throw new IllegalArgumentException("Snapshot has a different number of players");
+        }
+        for (Paddle paddle : world.getPaddles()) {
+            int paddleX = unzigzag(getVarLong());
+            paddle.restore(paddleX, unzigzag(getVarLong()));
+        }
+        int ballCount = (int) getVarLong();
+        world.restore(state, tick, score, ballCount);
+        for (Ball ball : world.getBalls()) {
+            ball.restore(getDouble(), getDouble(), getDouble(), getDouble(), getDouble(), getDouble());
+        }
+
+        // Bricks
+        int words = bricks.wordCount();
+        if (getVarLong() == BITMAP) {
+            for (int w = 0; w < words; w++) {
+                long bits = 0;
+                for (int b = 0; b < 8 && (w << 3) + b < ((bricks.size() + 7) >>> 3); b++) {
+                    bits |= (data[position++] & 0xFFL) << (b << 3);
+                }
+                bricks.setLiveWord(w, bits);
+            }
+            return;
+        }
+        long word = 0;
+        int w = 0;
+        boolean standing = true;
+        for (int i = 0; i < bricks.size(); standing = !standing) {
+            int end = i + (int) getVarLong();
+            while (i < end) {
+                // Fill the rest of the run within the current word
+                int upTo = Math.min(end, (w + 1) << 6);
+                if (standing) {
+                    word |= upTo - i == 64 ? -1L : ((1L << (upTo - i)) - 1) << i;
+                }
+                i = upTo;
+                if ((i & 63) == 0) {
+                    bricks.setLiveWord(w++, word);
+                    word = 0;
+                }
+            }
+        }
+        if (w < words) {
+            bricks.setLiveWord(w, word);
+        }
+    }
+
+    /**
+     * Gets the number of bytes the snapshot takes.
+     *
+     * @return The packed size.
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Copies the packed state out, for saving or sending.
+     *
+     * @return The packed bytes.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, length);
+    }
+
+    /**
+     * Finds the first brick from the given one whose liveness differs from the run it is in.
+     *
+     * @param bricks   The bricks.
+     * @param from     The first brick of the run.
+     * @param standing Whether the run is of standing bricks.
+     * @return The index of the first brick after the run, or the number of bricks.
+     */
+    private static int nextChange(BrickField bricks, int from, boolean standing) {
+        int w = from >>> 6;
+        long word = standing ? ~bricks.liveWord(w) : bricks.liveWord(w);
+        word &= -1L << from;
+        while (word == 0) {
+            if (++w == bricks.wordCount()) {
+                return bricks.size();
+            }
+            word = standing ? ~bricks.liveWord(w) : bricks.liveWord(w);
+        }
+        return Math.min(bricks.size(), (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Maps a signed number onto an unsigned one, small magnitudes to small numbers.
+     *
+     * @param value The signed number.
+     * @return The unsigned encoding.
+     */
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reverses {@link #zigzag}.
+     *
+     * @param value The unsigned encoding.
+     * @return The signed number.
+     */
+    private static int unzigzag(long value) {
+        int bits = (int) value;
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+
+    /**
+     * Appends an unsigned variable-length integer.
+     *
+     * @param value The number, treated as unsigned.
+     * @return void This method does not return a value.
+     */
+    private void putVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @return The number.
+     */
+    private long getVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Appends a double as its raw 8 bytes, so it is restored bit for bit.
+     *
+     * @param value The number.
+     * @return void This method does not return a value.
+     */
+    private void putDouble(double value) {
+        ensure(8);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int b = 0; b < 8; b++) {
+            data[length++] = (byte) (bits >>> (b << 3));
+        }
+    }
+
+    /**
+     * Reads a double written by {@link #putDouble}.
+     *
+     * @return The number.
+     */
+    private double getDouble() {
+        long bits = 0;
+        for (int b = 0; b < 8; b++) {
+            bits |= (data[position++] & 0xFFL) << (b << 3);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Makes room for more bytes at the end of the buffer.
+     *
+     * @param extra The number of bytes about to be appended.
+     * @return void This method does not return a value.
+     */
+    private void ensure(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package game;
+
+/**
+ * A uniform grid over the bricks of a board, used as the broad phase of
+ * ball-brick collision. Each brick is listed in every cell its bounds overlap,
+ * so finding the bricks near a ball only looks at the few cells under it
+ * instead of every brick on the board.
+ *
+ * The grid is built once from the brick layout and never changes afterwards.
+ * Destroyed bricks stay in their cells and are skipped by {@link #query},
+ * which makes {@link BrickField#destroy(int)} an O(1) removal and lets a restart
+ * reuse the grid as is.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class SpatialGrid {
+    /** The bricks indexed by this grid. */
+    private final BrickField bricks;
+
+    /** The side length of a square cell in pixels. */
+    private final int cellSize;
+
+    /** The x-coordinate of the left edge of the first column. */
+    private final int originX;
+
+    /** The y-coordinate of the top edge of the first row. */
+    private final int originY;
+
+    /** The number of columns of cells. */
+    private final int cols;
+
+    /** The number of rows of cells. */
+    private final int rows;
+
+    /** Where each cell's run of brick indices starts in {@link #cellBricks}; one extra entry ends the last run. */
+    private final int[] cellStart;
+
+    /** The brick indices of all cells, stored back to back in row-major cell order. */
+    private final int[] cellBricks;
+
+    /**
+     * Builds a grid over some of the bricks of a field, sizing cells to fit the
+     * largest of them so that no brick spans more than four cells.
+     *
+     * @param bricks  The field holding the bricks.
+     * @param indices The indices of the bricks to index.
+     * @param count   The number of bricks to index.
+     * @return void This constructor does not return a value.
+     */
+    public SpatialGrid(BrickField bricks, int[] indices, int count) {
+        this.bricks = bricks;
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int largest = 1;
+        for (int k = 0; k < count; k++) {
+            int i = indices[k];
+            minX = Math.min(minX, bricks.getX(i));
+            minY = Math.min(minY, bricks.getY(i));
+            maxX = Math.max(maxX, bricks.getX(i) + bricks.getWidth(i));
+            maxY = Math.max(maxY, bricks.getY(i) + bricks.getHeight(i));
+            largest = Math.max(largest, Math.max(bricks.getWidth(i), bricks.getHeight(i)));
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        cellSize = largest;
+        originX = minX;
+        originY = minY;
+        cols = Math.max(1, (maxX - minX) / cellSize + 1);
+        rows = Math.max(1, (maxY - minY) / cellSize + 1);
+
+        // Count the bricks in each cell, then lay the cells out back to back
+        cellStart = new int[cols * rows + 1];
+        for (int k = 0; k < count; k++) {
+            int i = indices[k];
+            for (int cy = row(bricks.getY(i)); cy <= row(bricks.getY(i) + bricks.getHeight(i)); cy++) {
+                for (int cx = col(bricks.getX(i)); cx <= col(bricks.getX(i) + bricks.getWidth(i)); cx++) {
+                    cellStart[cy * cols + cx + 1]++;
+                }
+            }
+        }
+        for (int i = 1; i < cellStart.length; i++) {
+            cellStart[i] += cellStart[i - 1];
+        }
+
+        cellBricks = new int[cellStart[cellStart.length - 1]];
+        int[] fill = new int[cols * rows];
+        for (int k = 0; k < count; k++) {
+            int i = indices[k];
+            for (int cy = row(bricks.getY(i)); cy <= row(bricks.getY(i) + bricks.getHeight(i)); cy++) {
+                for (int cx = col(bricks.getX(i)); cx <= col(bricks.getX(i) + bricks.getWidth(i)); cx++) {
+                    int cell = cy * cols + cx;
+                    cellBricks[cellStart[cell] + fill[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the bricks that have not been hit and whose bounds overlap the given box.
+     * Each brick is reported once even when it spans several cells.
+     *
+     * @param minX The left edge of the box.
+     * @param minY The top edge of the box.
+     * @param maxX The right edge of the box.
+     * @param maxY The bottom edge of the box.
+     * @param out  Receives the field indices of the matching bricks, as many as fit.
+     * @return The number of matching bricks; if more than {@code out} holds, query again with a larger array.
+     */
+    public int query(int minX, int minY, int maxX, int maxY, int[] out) {
+        return query(minX, minY, maxX, maxY, out, 0);
+    }
+
+    /**
+     * Finds the bricks that have not been hit and whose bounds overlap the given box,
+     * appending them to bricks already found.
+     *
+     * @param minX  The left edge of the box.
+     * @param minY  The top edge of the box.
+     * @param maxX  The right edge of the box.
+     * @param maxY  The bottom edge of the box.
+     * @param out   Receives the field indices of the matching bricks, as many as fit.
+     * @param found The number of bricks already found, which may be more than {@code out} holds.
+     * @return The number of bricks found afterwards; if more than {@code out} holds, only the first fit.
+     */
+    public int query(int minX, int minY, int maxX, int maxY, int[] out, int found) {
+        int firstCol = col(minX);
+        int firstRow = row(minY);
+        int lastCol = col(maxX);
+        int lastRow = row(maxY);
+        for (int cy = firstRow; cy <= lastRow; cy++) {
+            for (int cx = firstCol; cx <= lastCol; cx++) {
+                int cell = cy * cols + cx;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int index = cellBricks[k];
+                    int bx = bricks.getX(index);
+                    int by = bricks.getY(index);
+                    if (!bricks.isAlive(index)
+                            || bx > maxX || bx + bricks.getWidth(index) < minX
+                            || by > maxY || by + bricks.getHeight(index) < minY) {
+                        continue;
+                    }
+                    // Only the first cell the brick shares with the box reports it
+                    if (Math.max(col(bx), firstCol) != cx || Math.max(row(by), firstRow) != cy) {
+                        continue;
+                    }
+                    // Keep counting once the array is full, so the caller knows how large to make it
+                    if (found < out.length) {
+                        out[found] = index;
+                    }
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Estimates the memory held by the grid's index arrays.
+     *
+     * @return The size of the grid in bytes.
+     */
+    public long memoryBytes() {
+        return 4L * (cellStart.length + cellBricks.length) + 64;
+    }
+
+    /**
+     * Finds the column containing the given x-coordinate, clamped to the grid.
+     *
+     * @param x The x-coordinate.
+     * @return The column index.
+     */
+    private int col(int x) {
+        return Math.min(cols - 1, Math.max(0, (x - originX) / cellSize));
+    }
+
+    /**
+     * Finds the row containing the given y-coordinate, clamped to the grid.
+     *
+     * @param y The y-coordinate.
+     * @return The row index.
+     */
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, (y - originY) / cellSize));
+    }
+}
@@ -0,0 +1,233 @@
+package game;
+
+/**
+ * Continuous collision tests for a moving circle. Instead of checking where the
+ * circle ends up, each test finds the time of impact along its path and the
+ * surface normal at that point, so fast movement cannot tunnel through thin targets.
+ *
+ * Times are fractions of the circle's velocity, so a contact at {@code time} lies at
+ * {@code center + velocity * time}. Every test only writes to the {@link Contact}
+ * when it finds a hit earlier than the contact's current time, which lets several
+ * targets be tested in turn to find the first one hit.
+ *
+ * @author Team
+ * @version 1.0
+ */
+final class Sweep {
+    /** How far a circle may already overlap a target and still be considered touching it. */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Prevents instantiation; all tests are static.
+     *
+     * @return void This constructor does not return a value.
+     */
+    private Sweep() {
+    }
+
+    /**
+     * Sweeps a circle against an axis-aligned box. The box is grown by the radius
+     * into a rounded rectangle and a ray is cast from the circle's center: the flat
+     * sides are hit through a slab test and the rounded corners through a ray-circle test.
+     * A circle that already overlaps the box hits it at time {@code 0} if it is moving inwards.
+     *
+     * @param cx      The x-coordinate of the circle's center.
+     * @param cy      The y-coordinate of the circle's center.
+     * @param radius  The radius of the circle.
+     * @param vx      The x-component of the circle's velocity.
+     * @param vy      The y-component of the circle's velocity.
+     * @param minX    The left edge of the box.
+     * @param minY    The top edge of the box.
+     * @param maxX    The right edge of the box.
+     * @param maxY    The bottom edge of the box.
+     * @param kind    What the box is, recorded in the contact.
+     * @param index   The brick index recorded in the contact, or {@code -1}.
+     * @param contact Receives the hit if it is earlier than the one it holds.
+     * @return {@code true} if an earlier hit was recorded, otherwise {@code false}.
+     */
+    public static boolean circleVsBox(double cx, double cy, double radius, double vx, double vy,
+            double minX, double minY, double maxX, double maxY, int kind, int index, Contact contact) {
+        // Closest point of the box to the center
+        double px = Math.max(minX, Math.min(cx, maxX));
+        double py = Math.max(minY, Math.min(cy, maxY));
+        double ox = cx - px;
+        double oy = cy - py;
+        double distSq = ox * ox + oy * oy;
+
+        if (distSq < radius * radius - EPSILON) {
+            return overlapping(cx, cy, vx, vy, minX, minY, maxX, maxY, ox, oy, distSq, kind, index, contact);
+        }
+
+        // Slab test against the box grown by the radius
+        double tEnter = Double.NEGATIVE_INFINITY;
+        double tExit = Double.POSITIVE_INFINITY;
+        double nx = 0;
+        double ny = 0;
+        if (vx != 0) {
+            double t1 = (minX - radius - cx) / vx;
+            double t2 = (maxX + radius - cx) / vx;
+            double near = Math.min(t1, t2);
+            tEnter = near;
+            nx = vx > 0 ? -1 : 1;
+            tExit = Math.max(t1, t2);
+        } else if (cx < minX - radius || cx > maxX + radius) {
+            return false;
+        }
+        if (vy != 0) {
+            double t1 = (minY - radius - cy) / vy;
+            double t2 = (maxY + radius - cy) / vy;
+            double near = Math.min(t1, t2);
+            if (near > tEnter) {
+                tEnter = near;
+                nx = 0;
+                ny = vy > 0 ? -1 : 1;
+            }
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        } else if (cy < minY - radius || cy > maxY + radius) {
+            return false;
+        }
+        if (tEnter > tExit || tEnter < -EPSILON || tEnter >= contact.time) {
+            return false;
+        }
+
+        // Entering through a corner of the grown box: test the rounded corner instead
+        double hx = cx + vx * tEnter;
+        double hy = cy + vy * tEnter;
+        boolean outsideX = hx < minX || hx > maxX;
+        boolean outsideY = hy < minY || hy > maxY;
+        if (outsideX && outsideY) {
+            double cornerX = hx < minX ? minX : maxX;
+            double cornerY = hy < minY ? minY : maxY;
+            double t = rayVsCircle(cx - cornerX, cy - cornerY, vx, vy, radius);
+            if (t < -EPSILON || t >= contact.time) {
+                return false;
+            }
+            double sx = cx + vx * t - cornerX;
+            double sy = cy + vy * t - cornerY;
+            double length = Math.sqrt(sx * sx + sy * sy);
+            contact.set(kind, index, Math.max(0, t), sx / length, sy / length);
+            return true;
+        }
+
+        contact.set(kind, index, Math.max(0, tEnter), nx, ny);
+        return true;
+    }
+
+    /**
+     * Sweeps a circle against the inside of a vertical wall.
+     *
+     * @param cx      The x-coordinate of the circle's center.
+     * @param radius  The radius of the circle.
+     * @param vx      The x-component of the circle's velocity.
+     * @param wallX   The x-coordinate of the wall.
+     * @param facing  {@code 1} if the playing field lies right of the wall, {@code -1} if it lies left.
+     * @param contact Receives the hit if it is earlier than the one it holds.
+     * @return {@code true} if an earlier hit was recorded, otherwise {@code false}.
+     */
+    public static boolean circleVsWallX(double cx, double radius, double vx, double wallX, int facing,
+            Contact contact) {
+        if (vx * facing >= 0) {
+            return false;
+        }
+        double t = Math.max(0, (wallX + facing * radius - cx) / vx);
+        if (t >= contact.time) {
+            return false;
+        }
+        contact.set(Contact.WALL, -1, t, facing, 0);
+        return true;
+    }
+
+    /**
+     * Sweeps a circle against the inside of a horizontal wall.
+     *
+     * @param cy      The y-coordinate of the circle's center.
+     * @param radius  The radius of the circle.
+     * @param vy      The y-component of the circle's velocity.
+     * @param wallY   The y-coordinate of the wall.
+     * @param facing  {@code 1} if the playing field lies below the wall, {@code -1} if it lies above.
+     * @param contact Receives the hit if it is earlier than the one it holds.
+     * @return {@code true} if an earlier hit was recorded, otherwise {@code false}.
+     */
+    public static boolean circleVsWallY(double cy, double radius, double vy, double wallY, int facing,
+            Contact contact) {
+        if (vy * facing >= 0) {
+            return false;
+        }
+        double t = Math.max(0, (wallY + facing * radius - cy) / vy);
+        if (t >= contact.time) {
+            return false;
+        }
+        contact.set(Contact.WALL, -1, t, 0, facing);
+        return true;
+    }
+
+    /**
+     * Handles a circle that already overlaps a box: it hits at time {@code 0}
+     * along the direction that separates it fastest, unless it is already moving away.
+     *
+     * @param cx      The x-coordinate of the circle's center.
+     * @param cy      The y-coordinate of the circle's center.
+     * @param vx      The x-component of the circle's velocity.
+     * @param vy      The y-component of the circle's velocity.
+     * @param minX    The left edge of the box.
+     * @param minY    The top edge of the box.
+     * @param maxX    The right edge of the box.
+     * @param maxY    The bottom edge of the box.
+     * @param ox      The x-offset of the center from the closest point of the box.
+     * @param oy      The y-offset of the center from the closest point of the box.
+     * @param distSq  The squared length of that offset.
+     * @param kind    What the box is, recorded in the contact.
+     * @param index   The brick index recorded in the contact, or {@code -1}.
+     * @param contact Receives the hit if it is earlier than the one it holds.
+     * @return {@code true} if an earlier hit was recorded, otherwise {@code false}.
+     */
+    private static boolean overlapping(double cx, double cy, double vx, double vy,
+            double minX, double minY, double maxX, double maxY,
+            double ox, double oy, double distSq, int kind, int index, Contact contact) {
+        if (contact.time <= 0) {
+            return false;
+        }
+        double nx;
+        double ny;
+        if (distSq > EPSILON) {
+            double length = Math.sqrt(distSq);
+            nx = ox / length;
+            ny = oy / length;
+        } else {
+            // Center inside the box: push out through the nearest side
+            double left = cx - minX;
+            double right = maxX - cx;
+            double top = cy - minY;
+            double bottom = maxY - cy;
+            double least = Math.min(Math.min(left, right), Math.min(top, bottom));
+            nx = least == left ? -1 : least == right ? 1 : 0;
+            ny = nx != 0 ? 0 : least == top ? -1 : 1;
+        }
+        if (vx * nx + vy * ny >= 0) {
+            return false;
+        }
+        contact.set(kind, index, 0, nx, ny);
+        return true;
+    }
+
+    /**
+     * Finds when a ray starting at the given offset from a circle's center first reaches the circle.
+     *
+     * @param ox     The x-offset of the ray's origin from the circle's center.
+     * @param oy     The y-offset of the ray's origin from the circle's center.
+     * @param vx     The x-component of the ray's direction.
+     * @param vy     The y-component of the ray's direction.
+     * @param radius The radius of the circle.
+     * @return The time of the first crossing, or {@link Double#POSITIVE_INFINITY} if the ray misses.
+     */
+    private static double rayVsCircle(double ox, double oy, double vx, double vy, double radius) {
+        double a = vx * vx + vy * vy;
+        double b = ox * vx + oy * vy;
+        double c = ox * ox + oy * oy - radius * radius;
+        double disc = b * b - a * c;
+        if (a == 0 || disc < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (-b - Math.sqrt(disc)) / a;
+    }
+}
@@ -0,0 +1,595 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The brick breaker simulation without any window or rendering: the paddle,
+ * the balls, the bricks, any polygon obstacles, the score, and whether the round
+ * is won or lost.
+ * A world only changes when {@link #tick(int)} is called, so it runs the same
+ * with {@code java.awt.headless=true} as it does behind {@link YourGameName}.
+ *
+ * Each tick moves every ball against the board as it stood at the start of the
+ * tick, optionally spread over a {@link ForkJoinPool}, and only then destroys the
+ * bricks they hit, in ball order. When two balls hit the same brick in one tick,
+ * both bounce and the earlier ball in the list scores it. Since no ball sees
+ * another's changes mid-tick, the outcome is the same with or without a pool.
+ *
+ * A world may hold several paddles side by side, one per player, each driven by
+ * its own input through {@link #tick(int[])}; every ball bounces off all of them.
+ *
+ * The board may be much larger than the window. Bricks are found through a
+ * {@link ChunkedGrid} whose chunks are loaded around the balls and around the
+ * area set with {@link #setFocus}, usually the camera, and dropped under a memory
+ * budget elsewhere.
+ *
+ * @author Team
+ * @version 1.0
+ */
+class World {
+    /** Input bit for holding the paddle's left control. */
+    public static final int INPUT_LEFT = 1;
+
+    /** Input bit for holding the paddle's right control. */
+    public static final int INPUT_RIGHT = 2;
+
+    /** Input bit for restarting the round before the tick is played. */
+    public static final int INPUT_RESTART = 4;
+
+    /** The points awarded for each destroyed brick. */
+    public static final int BRICK_POINTS = 100;
+
+    /** The diameter of the ball. */
+    private static final int BALL_DIAMETER = 15;
+
+    /** The most balls moved by one task when balls are moved in parallel. */
+    private static final int BALLS_PER_TASK = 32;
+
+    /** The width of the playing field. */
+    private final int width;
+
+    /** The height of the playing field; a ball below it is lost. */
+    private final int height;
+
+    /** The bricks that the player must break. */
+    private final BrickField bricks;
+
+    /** Indexes the bricks by position for collision detection. */
+    private final ChunkedGrid grid;
+
+    /** Convex polygons the ball bounces off without destroying them. */
+    private final List<Polygon> obstacles = new ArrayList<>();
+
+    /** The paddles, one per player. */
+    private final List<Paddle> paddles = new ArrayList<>();
+
+    /** Holds the input of {@link #tick(int)} for the single player, so that ticking does not allocate. */
+    private final int[] soloInput = new int[1];
+
+    /** The balls in play, in the order their brick hits are resolved. */
+    private final List<Ball> balls = new ArrayList<>();
+
+    /** Keeps lost balls for reuse, so serving and spawning balls does not allocate. */
+    private final Pool<Ball> ballPool = new Pool<>(() -> new Ball(0, 0, BALL_DIAMETER), Ball::clearHits);
+
+    /** The pool balls are moved on, or {@code null} to move them on the ticking thread. */
+    private ForkJoinPool pool;
+
+    /** Manages the player's score. */
+    private final ScoreManager score = new ScoreManager();
+
+    /** Whether the round is still being played, won, or lost. */
+    private State state = State.RUNNING;
+
+    /** The number of ticks since the round started. */
+    private long tick;
+
+    /** The area kept loaded besides the balls' surroundings, as x, y, width and height; empty if the width is zero. */
+    private final int[] focus = new int[4];
+
+    /** The number of collision tests run during the last tick. */
+    private long collisionChecks;
+
+    /** The number of bricks looked at during the last tick. */
+    private long bricksVisited;
+
+    /**
+     * Constructs a world with the standard board of five rows of ten bricks.
+     *
+     * @param width  The width of the playing field.
+     * @param height The height of the playing field.
+     * @return void This constructor does not return a value.
+     */
+    public World(int width, int height) {
+        this(width, height, BrickField.grid(10, 5, 75, 20, 5));
+    }
+
+    /**
+     * Constructs a world playing a loaded level. The world plays its own copy of
+     * the level's bricks and obstacles, sharing the brick layout, so one level can
+     * back any number of worlds at once.
+     *
+     * @param level The level to play.
+     * @return void This constructor does not return a value.
+     */
+    public World(Level level) {
+        this(level.getWidth(), level.getHeight(), level.getBricks().copy());
+        for (Polygon obstacle : level.getObstacles()) {
+            obstacles.add(obstacle.copy());
+        }
+    }
+
+    /**
+     * Constructs a world around the given bricks.
+     *
+     * @param width  The width of the playing field.
+     * @param height The height of the playing field.
+     * @param bricks The bricks that the player must break.
+     * @return void This constructor does not return a value.
+     */
+    public World(int width, int height, BrickField bricks) {
+        this(width, height, bricks, 1);
+    }
+
+    /**
+     * Constructs a world around the given bricks for several players, with their
+     * paddles spread evenly across the field.
+     *
+     * @param width   The width of the playing field.
+     * @param height  The height of the playing field.
+     * @param bricks  The bricks that the players must break.
+     * @param players The number of paddles.
+     * @return void This constructor does not return a value.
+     */
+    public World(int width, int height, BrickField bricks, int players) {
+        this.width = width;
+        this.height = height;
+        this.bricks = bricks;
+        this.grid = new ChunkedGrid(bricks);
+        for (int i = 0; i < players; i++) {
+            int center = (int) ((2L * i + 1) * width / (2L * players));
+            paddles.add(new Paddle(center - 50, height - 50, 100, 10, width));
+        }
+        this.balls.add(newBall());
+    }
+
+    /**
+     * Advances the world by one tick with the first paddle's controls.
+     *
+     * @param input The controls for this tick, a combination of {@link #INPUT_LEFT},
+     *              {@link #INPUT_RIGHT} and {@link #INPUT_RESTART}.
+     * @return void This method does not return a value.
+     */
+    public void tick(int input) {
+        soloInput[0] = input;
+        tick(soloInput);
+    }
+
+    /**
+     * Advances the world by one tick: moves the paddles and balls, destroys the
+     * bricks the balls hit, drops the balls that fell past the paddles, and checks
+     * the win and lose conditions. Nothing happens once the round is over,
+     * unless an input asks for a restart.
+     *
+     * @param inputs The controls of each paddle for this tick, each a combination of
+     *               {@link #INPUT_LEFT}, {@link #INPUT_RIGHT} and {@link #INPUT_RESTART};
+     *               paddles without an entry hold still.
+     * @return void This method does not return a value.
+     */
+    public void tick(int[] inputs) {
+        collisionChecks = 0;
+        bricksVisited = 0;
+        for (int input : inputs) {
+            if ((input & INPUT_RESTART) != 0) {
+                restart();
+                break;
+            }
+        }
+        if (state != State.RUNNING) {
+            return;
+        }
+        tick++;
+
+        // Handle paddle movement
+        for (int i = 0; i < paddles.size(); i++) {
+            int input = i < inputs.length ? inputs[i] : 0;
+            Paddle paddle = paddles.get(i);
+            paddle.move((input & INPUT_LEFT) != 0, (input & INPUT_RIGHT) != 0);
+            paddle.update();
+        }
+
+        // Obstacles cache their vertices lazily; settle them before balls read them concurrently
+        for (int i = 0; i < obstacles.size(); i++) {
+            obstacles.get(i).refresh();
+        }
+
+        // Load the chunks around the balls and the focus, and let go of the rest
+        grid.beginTick();
+        for (int i = 0; i < balls.size(); i++) {
+            Ball ball = balls.get(i);
+            int reach = (int) Math.ceil(Math.abs(ball.getDx()) + Math.abs(ball.getDy())) + 2;
+            grid.activate((int) ball.getX() - reach, (int) ball.getY() - reach,
+                    (int) ball.getX() + BALL_DIAMETER + reach, (int) ball.getY() + BALL_DIAMETER + reach);
+        }
+        if (focus[2] > 0) {
+            grid.activate(focus[0], focus[1], focus[0] + focus[2], focus[1] + focus[3]);
+        }
+        grid.trim();
+
+        // Move every ball against the board as it stands now
+        if (pool == null || balls.size() <= BALLS_PER_TASK) {
+            for (int i = 0; i < balls.size(); i++) {
+                balls.get(i).advance(this);
+            }
+        } else {
+            pool.invoke(new AdvanceBalls(0, balls.size()));
+        }
+
+        // Destroy the bricks the balls hit, in ball order, and drop lost balls
+        int kept = 0;
+        for (int i = 0; i < balls.size(); i++) {
+            Ball ball = balls.get(i);
+            collisionChecks += ball.getCollisionChecks();
+            bricksVisited += ball.getBricksVisited();
+            for (int h = 0; h < ball.getHitCount(); h++) {
+                if (bricks.destroy(ball.getHit(h))) {
+                    score.addScore(BRICK_POINTS);
+                }
+            }
+            if (ball.getY() <= height) {
+                balls.set(kept++, ball);
+            } else {
+                ballPool.release(ball);
+            }
+        }
+        while (balls.size() > kept) {
+            balls.remove(balls.size() - 1);
+        }
+
+        // Winning condition
+        if (bricks.liveCount() == 0) {
+            state = State.WON;
+        }
+
+        // Losing condition
+        else if (balls.isEmpty()) {
+            state = State.LOST;
+        }
+    }
+
+    /**
+     * Adds a ball to the round, for example from a multi-ball power-up. The ball is
+     * taken from the pool of lost balls when there is one; callers must not keep it
+     * after it is lost, since it will be served again.
+     *
+     * @param x  The x-coordinate of the new ball.
+     * @param y  The y-coordinate of the new ball.
+     * @param dx The horizontal speed of the new ball.
+     * @param dy The vertical speed of the new ball.
+     * @return The new ball.
+     */
+    public Ball spawnBall(int x, int y, double dx, double dy) {
+        Ball ball = ballPool.acquire();
+        ball.reset(x, y, dx, dy);
+        balls.add(ball);
+        return ball;
+    }
+
+    /**
+     * Sets the pool balls are moved on. Without a pool, or with few balls,
+     * balls are moved one after another on the ticking thread.
+     *
+     * @param inPool The pool to use, or {@code null} to move balls on the ticking thread.
+     * @return void This method does not return a value.
+     */
+    public void setPool(ForkJoinPool inPool) {
+        pool = inPool;
+    }
+
+    /**
+     * Restarts the round, resetting the score, standing every brick back up,
+     * and serving a new ball.
+     *
+     * @return void This method does not return a value.
+     */
+    public void restart() {
+        score.resetScore();
+        bricks.reset();
+        for (int i = 0; i < balls.size(); i++) {
+            ballPool.release(balls.get(i));
+        }
+        balls.clear();
+        balls.add(newBall());
+        state = State.RUNNING;
+        tick = 0;
+    }
+
+    /**
+     * Sets the round's progress and serves the given number of balls, as the first
+     * step of restoring a {@link Snapshot}; the caller then puts each ball, the
+     * paddle and the bricks back.
+     *
+     * @param inState   The state of the round.
+     * @param inTick    The number of ticks since the round started.
+     * @param inScore   The score.
+     * @param ballCount The number of balls in play.
+     * @return void This method does not return a value.
+     */
+    void restore(State inState, long inTick, int inScore, int ballCount) {
+        state = inState;
+        tick = inTick;
+        score.setScore(inScore);
+        for (int i = 0; i < balls.size(); i++) {
+            ballPool.release(balls.get(i));
+        }
+        balls.clear();
+        for (int i = 0; i < ballCount; i++) {
+            balls.add(ballPool.acquire());
+        }
+    }
+
+    /**
+     * Sets the area of the board to keep loaded, such as the part shown on screen,
+     * in addition to the surroundings of every ball.
+     *
+     * @param x The x-coordinate of the area.
+     * @param y The y-coordinate of the area.
+     * @param w The width of the area, or {@code 0} to keep only the balls' surroundings.
+     * @param h The height of the area.
+     * @return void This method does not return a value.
+     */
+    public void setFocus(int x, int y, int w, int h) {
+        focus[0] = x;
+        focus[1] = y;
+        focus[2] = w;
+        focus[3] = h;
+    }
+
+    /**
+     * Adds a polygon obstacle. Obstacles may be moved or rotated between ticks.
+     *
+     * @param obstacle The convex polygon to add.
+     * @return void This method does not return a value.
+     */
+    public void addObstacle(Polygon obstacle) {
+        obstacles.add(obstacle);
+    }
+
+    /**
+     * Gets the pool lost balls are kept in for reuse, for its occupancy counts.
+     *
+     * @return The ball pool.
+     */
+    public Pool<Ball> getBallPool() {
+        return ballPool;
+    }
+
+    /**
+     * Gets the polygon obstacles.
+     *
+     * @return The obstacles of this world.
+     */
+    public List<Polygon> getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Creates a ball at the serving position.
+     *
+     * @return The new ball.
+     */
+    private Ball newBall() {
+        Ball ball = ballPool.acquire();
+        ball.reset(width / 2, height - 200, 6, -6);
+        return ball;
+    }
+
+    /**
+     * Computes a fingerprint of everything that affects how the world plays on:
+     * the paddle, every ball, the standing bricks, the score, and the round state.
+     * Two worlds fed the same inputs from the same start have the same checksum.
+     *
+     * @return The checksum.
+     */
+    public long checksum() {
+        long hash = bricks.checksum();
+        for (int i = 0; i < paddles.size(); i++) {
+            hash = hash * 31 + paddles.get(i).x;
+        }
+        for (int i = 0; i < balls.size(); i++) {
+            Ball ball = balls.get(i);
+            hash = hash * 31 + Double.doubleToLongBits(ball.getX());
+            hash = hash * 31 + Double.doubleToLongBits(ball.getY());
+            hash = hash * 31 + Double.doubleToLongBits(ball.getDx());
+            hash = hash * 31 + Double.doubleToLongBits(ball.getDy());
+        }
+        hash = hash * 31 + score.getScore();
+        hash = hash * 31 + state.ordinal();
+        return hash;
+    }
+
+    /**
+     * Gets the width of the playing field.
+     *
+     * @return The width of the playing field.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the playing field.
+     *
+     * @return The height of the playing field.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the bricks.
+     *
+     * @return The bricks of this world.
+     */
+    public BrickField getBricks() {
+        return bricks;
+    }
+
+    /**
+     * Gets the grid indexing the bricks.
+     *
+     * @return The collision grid of this world.
+     */
+    ChunkedGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Gets the first paddle, the only one in a single-player world.
+     *
+     * @return The first paddle of this world.
+     */
+    public Paddle getPaddle() {
+        return paddles.get(0);
+    }
+
+    /**
+     * Gets every paddle, in player order.
+     *
+     * @return The paddles of this world.
+     */
+    public List<Paddle> getPaddles() {
+        return paddles;
+    }
+
+    /**
+     * Gets the balls in play.
+     *
+     * @return The balls of this world.
+     */
+    public List<Ball> getBalls() {
+        return balls;
+    }
+
+    /**
+     * Finds the ball in play closest to the bottom of the field, which the paddle
+     * should reach first.
+     *
+     * @return The lowest ball, or {@code null} if there are none.
+     */
+    public Ball getLowestBall() {
+        Ball lowest = null;
+        for (int i = 0; i < balls.size(); i++) {
+            Ball ball = balls.get(i);
+            if (lowest == null || ball.getY() > lowest.getY()) {
+                lowest = ball;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Gets the player's score.
+     *
+     * @return The current score.
+     */
+    public int getScore() {
+        return score.getScore();
+    }
+
+    /**
+     * Gets whether the round is still being played, won, or lost.
+     *
+     * @return The state of the round.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the number of collision tests the balls ran during the last tick.
+     *
+     * @return The number of tests.
+     */
+    public long getCollisionChecks() {
+        return collisionChecks;
+    }
+
+    /**
+     * Gets the number of bricks the balls looked at during the last tick.
+     *
+     * @return The number of bricks.
+     */
+    public long getBricksVisited() {
+        return bricksVisited;
+    }
+
+    /**
+     * Gets the number of ticks since the round started.
+     *
+     * @return The tick count.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * The outcome of a round.
+     */
+    public enum State {
+        /** The round is still being played. */
+        RUNNING,
+
+        /** Every brick has been destroyed. */
+        WON,
+
+        /** The ball fell past the paddle. */
+        LOST
+    }
+
+    /**
+     * Moves a range of balls, splitting it in half until each part is small enough.
+     */
+    private final class AdvanceBalls extends RecursiveAction {
+        /** Required of a serializable class; the task is never serialized. */
+        private static final long serialVersionUID = 1L;
+
+        /** The index of the first ball to move. */
+        private final int from;
+
+        /** The index after the last ball to move. */
+        private final int to;
+
+        /**
+         * Constructs a task for the given range of balls.
+         *
+         * @param from The index of the first ball to move.
+         * @param to   The index after the last ball to move.
+         * @return void This constructor does not return a value.
+         */
+        AdvanceBalls(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Moves the balls, or splits the range and moves both halves in parallel.
+         *
+         * @return void This method does not return a value.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= BALLS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    balls.get(i).advance(World.this);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new AdvanceBalls(from, middle), new AdvanceBalls(middle, to));
+        }
+    }
+}
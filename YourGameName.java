@@ -1,7 +1,13 @@
 package game;
 
 import java.awt.*;
-import java.util.ArrayList;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The main game class for "Brick Breaker". 
@@ -13,216 +19,316 @@ import java.util.ArrayList;
  */
 public class YourGameName extends Game {
 
-    /** The paddle controlled by the player. */
-    private Paddle paddle;
+    /** How long an ended round is shown before the game restarts by itself, in ticks. */
+    private static final int AUTO_RESTART_TICKS = 2 * TICKS_PER_SECOND;
+
+    /** How far right of the paddle's centre the game aims the ball when playing itself. */
+    private static final int AUTOPILOT_OFFSET = 20;
+
+    /** The simulation being played and drawn. */
+    private World world;
 
     /** Handles paddle movement using keyboard input. */
     private Paddle.Movement movement;
 
-    /** The ball that moves and interacts with the paddle and bricks. */
-    private Ball ball;
+    /** The background and bricks, in tiles patched only where bricks were destroyed. */
+    private BrickTiles brickTiles;
+
+    /** The frame as last composed; only the parts that changed are drawn again. */
+    private BufferedImage scene;
+
+    /** Draws onto {@link #scene}; kept open for the life of the game. */
+    private Graphics2D sceneGraphics;
+
+    /** The parts of {@link #scene} to restore from the brick tiles this frame. */
+    private DirtyRegion dirty;
+
+    /** The parts of {@link #scene} the paddle, balls, obstacles and score were drawn over last frame. */
+    private DirtyRegion drawnOver;
+
+    /** The sparks thrown off by destroyed bricks. */
+    private final ParticleSystem particles = new ParticleSystem(1 << 17);
+
+    /** The pixels of {@link #scene}, row by row, for drawing particles straight into. */
+    private int[] scenePixels;
+
+    /** The score and end-screen text, rasterized only when it changes. */
+    private Hud hud;
 
-    /** The list of bricks that the player must break. */
-    private ArrayList<Brick> bricks = new ArrayList<>();
+    /** Batches the paddle, balls and obstacles by color. */
+    private final RenderQueue renderQueue = new RenderQueue();
 
-    /** Determines whether the game is currently running. */
-    private boolean running = true;
+    /** Whether the last frame showed the game being played rather than an end screen. */
+    private boolean showedRunning = true;
 
-    /** Manages the player's score. */
-    private ScoreManager score = new ScoreManager();
+    /** The board x-coordinate of the window's left edge in the last frame. */
+    private int shownCameraX;
+
+    /** The board y-coordinate of the window's top edge in the last frame. */
+    private int shownCameraY;
+
+    /** Reused to outline each obstacle when drawing it. */
+    private final Path2D.Double obstaclePath = new Path2D.Double();
 
     /** Controls the game-over screen rotation effect. */
     private boolean rotateRight = true;
 
+    /** Records every tick's input when {@code game.record} names a file, otherwise {@code null}. */
+    private Replay replay;
+
+    /** Steers the paddle when {@code game.controller} is {@code ai}, otherwise {@code null}. */
+    private PaddleController autopilot;
+
+    /** The ticks since the round ended. */
+    private int endedTicks;
+
     /**
-     * Constructs the game, initializing the paddle, ball, bricks, and key listeners.
+     * Constructs the game, initializing the world and key listeners.
      * 
+     * @param renderMode How frames reach the screen.
      * @return void This constructor does not return a value.
      */
-    public YourGameName() {
-        super("Brick Breaker", 800, 600);
-
-        // Initialize paddle and movement
-        paddle = new Paddle(350, 550, 100, 10);
-        movement = paddle.new Movement();
+    public YourGameName(RenderMode renderMode) {
+        super("Brick Breaker", 800, 600, renderMode);
+
+        // Initialize the paddle, ball, and bricks
+        world = createWorld(System.getProperty("game.level"));
+
+        // Pre-render the bricks and the first frame
+        brickTiles = new BrickTiles(world, width, height);
+        scene = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        sceneGraphics = scene.createGraphics();
+        scenePixels = ((DataBufferInt) scene.getRaster().getDataBuffer()).getData();
+        hud = new Hud(sceneGraphics.getFont(), sceneGraphics.getFontRenderContext(), width, height);
+        dirty = new DirtyRegion(width, height);
+        drawnOver = new DirtyRegion(width, height);
+        dirty.markAll();
+
+        // Initialize paddle movement and the 'K' restart key
+        movement = world.getPaddle().new Movement();
         addKeyListener(movement);
 
-        // Restart game when 'K' is pressed
-        addKeyListener(new java.awt.event.KeyAdapter() {
-            @Override
-            public void keyPressed(java.awt.event.KeyEvent e) {
-                if (e.getKeyCode() == java.awt.event.KeyEvent.VK_K) {
-                    restart();
-                }
-            }
+        // Let the game play itself when asked to, for long unattended runs
+        if ("ai".equals(System.getProperty("game.controller"))) {
+            autopilot = new PaddleController.Intercept(0, AUTOPILOT_OFFSET);
+        }
+
+        // Throw off sparks and patch the brick tiles whenever a brick breaks
+        world.getBricks().setDestroyListener(index -> {
+            particles.breakBrick(world.getBricks(), index);
+            brickTiles.brickDestroyed(index);
         });
 
-        // Initialize ball
-        ball = new Ball(400, 400, 15);
-
-        // Generate bricks
-        int rows = 5;
-        int cols = 10;
-        int brickWidth = 75;
-        int brickHeight = 20;
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                bricks.add(new Brick(col * (brickWidth + 5), row * (brickHeight + 5), brickWidth, brickHeight));
+        // Record the session when asked to, saving it when the game exits
+        String recordPath = System.getProperty("game.record");
+        if (recordPath != null && System.getProperty("game.level") != null) {
+            System.err.println("Replays only cover the standard board; not recording this level");
+        } else if (recordPath != null) {
+            replay = new Replay(width, height);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> saveReplay(Paths.get(recordPath))));
+        }
+    }
+
+    /**
+     * Builds the world from a level file, or with the standard board if no file is
+     * given or it cannot be loaded.
+     * 
+     * @param levelPath The level file to load, or {@code null}.
+     * @return The new world.
+     */
+    private World createWorld(String levelPath) {
+        if (levelPath != null) {
+            try {
+                return new World(Level.load(Paths.get(levelPath)));
+            } catch (IOException e) {
+                System.err.println("Could not load level " + levelPath + ": " + e.getMessage());
             }
         }
+        return new World(width, height);
+    }
+
+    /**
+     * Saves the recorded session along with its outcome.
+     * 
+     * @param path The file to write.
+     * @return void This method does not return a value.
+     */
+    private void saveReplay(Path path) {
+        synchronized (lock) {
+            try {
+                replay.finish(world);
+                replay.write(path);
+            } catch (IOException e) {
+                System.err.println("Could not save replay to " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Advances the world by one tick with the key events that arrived since the
+     * last tick, and flips the game-over rotation effect when the ball is lost.
+     * The input is sampled once per tick, so a recorded session replays exactly.
+     * 
+     * @return void This method does not return a value.
+     */
+    @Override
+    protected void tick() {
+        int input = movement.getInput(metrics);
+        if (autopilot != null) {
+            // The keys only restart; the round also restarts by itself a while after it ends
+            endedTicks = world.getState() == World.State.RUNNING ? 0 : endedTicks + 1;
+            input = autopilot.nextInput(world) | (input & World.INPUT_RESTART)
+                    | (endedTicks >= AUTO_RESTART_TICKS ? World.INPUT_RESTART : 0);
+        }
+        if (replay != null) {
+            replay.record(input);
+        }
+
+        // Keep the board under the camera loaded
+        world.setFocus(cameraX(1), cameraY(1), width, height);
+
+        World.State before = world.getState();
+        world.tick(input);
+        metrics.recordCollisions(world.getCollisionChecks(), world.getBricksVisited());
+        particles.update(1f / TICKS_PER_SECOND, ForkJoinPool.commonPool());
+        if (before == World.State.RUNNING && world.getState() == World.State.LOST) {
+            rotateRight = !rotateRight;
+        }
     }
 
     /**
      * Paints all game elements on the screen, including the paddle, ball, bricks, and UI.
      * It also displays the game-over or win messages with a rotation effect.
+     *
+     * The frame is composed in an image kept from one frame to the next. Only the
+     * parts where something moved or a brick was destroyed are restored from the
+     * brick tiles and drawn again, so the cost of a frame does not depend on how
+     * many bricks are standing. When the board is larger than the window, the
+     * camera follows the lowest ball and the whole window is redrawn when it moves.
      * 
      * @param brush The graphics context used for rendering.
      * @return void This method does not return a value.
      */
     @Override
     public void paint(Graphics brush) {
-        Graphics2D g2d = (Graphics2D) brush;
-
-        if (!running) {
-            if (bricks.isEmpty()) {
-                g2d.setColor(Color.GREEN);
-                g2d.drawString("You Win! Score: " + score.getScore(), width / 2 - 60, height / 2 - 20);
-            } else {
-                g2d.setColor(Color.RED);
-                g2d.translate(width / 2, height / 2);
-                if (rotateRight) {
-                    g2d.rotate(Math.toRadians(15));
-                } else {
-                    g2d.rotate(Math.toRadians(-15));
-                }
-                g2d.drawString("Game Over! Score: " + score.getScore(), -50, 0);
-                g2d.rotate(rotateRight ? Math.toRadians(-15) : Math.toRadians(15));
-                g2d.translate(-width / 2, -height / 2);
-                g2d.drawString("Press 'K' to Keep Going", width / 2 - 60, height / 2 + 50);
+        if (world.getState() != World.State.RUNNING) {
+            // Show the win or game-over message over the last frame
+            if (hud.update(world.getState(), world.getScore(), rotateRight) || showedRunning) {
+                hud.draw(sceneGraphics);
             }
+            brush.drawImage(scene, 0, 0, null);
+            showedRunning = false;
             return;
         }
+        int cameraX = cameraX(alpha);
+        int cameraY = cameraY(alpha);
+        if (!showedRunning || cameraX != shownCameraX || cameraY != shownCameraY) {
+            dirty.markAll();
+            showedRunning = true;
+            shownCameraX = cameraX;
+            shownCameraY = cameraY;
+        }
 
-        // Background
-        brush.setColor(Color.BLACK);
-        brush.fillRect(0, 0, width, height);
-
-        // Handle paddle movement
-        movement.handleMovement(paddle);
-        paddle.draw(brush);
-        paddle.update();
-
-        // Draw ball
-        ball.draw(brush);
-        ball.update();
-
-        // Draw bricks
-        for (Brick brick : bricks) {
-            brick.draw(brush);
+        // Patch destroyed bricks, then wipe what was drawn over the last frame
+        dirty.setOrigin(cameraX, cameraY);
+        drawnOver.setOrigin(cameraX, cameraY);
+        brickTiles.update(cameraX, cameraY, width, height, dirty);
+        dirty.addAll(drawnOver);
+        brickTiles.copy(sceneGraphics, dirty, cameraX, cameraY, width, height);
+        dirty.clear();
+        drawnOver.clear();
+
+        // Particles go straight into the pixels, under everything else
+        drawnOver.setOrigin(cameraX, cameraY);
+        particles.render(scenePixels, width, height, cameraX, cameraY, drawnOver);
+
+        // Queue paddle and balls where they are between the last two ticks
+        Paddle paddle = world.getPaddle();
+        paddle.draw(renderQueue, alpha);
+        paddle.addBounds(drawnOver);
+        for (Ball ball : world.getBalls()) {
+            ball.draw(renderQueue, alpha);
+            ball.addBounds(drawnOver);
         }
 
-        // Collision detection: Remove bricks when hit
-        bricks.removeIf(brick -> {
-            if (ball.hitsBrick(brick) && !brick.isHit()) {
-                brick.destroy();
-                ball.bouncePaddle();
-                score.addScore(100);
-                return true;
+        // Queue obstacles
+        for (Polygon obstacle : world.getObstacles()) {
+            obstaclePath.reset();
+            obstaclePath.moveTo(obstacle.getX(0), obstacle.getY(0));
+            for (int i = 1; i < obstacle.getVertexCount(); i++) {
+                obstaclePath.lineTo(obstacle.getX(i), obstacle.getY(i));
             }
-            return false;
-        });
-
-        // Paddle collision
-        if (ball.hitsPaddle(paddle)) {
-            ball.bouncePaddle();
+            obstaclePath.closePath();
+            renderQueue.fill(Color.GRAY, obstaclePath);
+            Rectangle bounds = obstaclePath.getBounds();
+            drawnOver.add(bounds.x - 1, bounds.y - 1, bounds.width + 2, bounds.height + 2);
         }
+        sceneGraphics.translate(-cameraX, -cameraY);
+        renderQueue.flush(sceneGraphics);
+        sceneGraphics.translate(cameraX, cameraY);
 
         // Display score
-        brush.setColor(Color.WHITE);
-        brush.drawString("Score: " + score.getScore(), 10, 200);
-
-        // Winning condition
-        if (bricks.isEmpty()) {
-            g2d.setColor(Color.GREEN);
-            g2d.drawString("You Win! Score: " + score.getScore(), width / 2 - 60, height / 2 - 20);
-            running = false;
-        }
+        hud.update(World.State.RUNNING, world.getScore(), rotateRight);
+        hud.draw(sceneGraphics);
+        drawnOver.setOrigin(0, 0);
+        drawnOver.add(hud.getX(), hud.getY(), hud.getWidth(), hud.getHeight());
 
-        // Losing condition
-        if (ball.y > height) {
-            stop();
-            rotateRight = !rotateRight;
-        }
+        brush.drawImage(scene, 0, 0, null);
     }
 
     /**
-     * Restarts the game, resetting the score, reinitializing the ball and bricks, 
-     * and setting the game state to running.
+     * Finds the board x-coordinate of the window's left edge: centred on the lowest
+     * ball, or on the paddle when no ball is in play, and kept on the board.
      * 
-     * @return void This method does not return a value.
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return The camera's x-coordinate.
      */
-    private void restart() {
-        score.resetScore();
-        running = true;
-        bricks.forEach(brick -> brick.hit = false);
-        ball = new Ball(400, 400, 15);
-        repaint();
+    private int cameraX(double alpha) {
+        int span = world.getWidth() - width;
+        if (span <= 0) {
+            return 0;
+        }
+        Ball ball = world.getLowestBall();
+        Paddle paddle = world.getPaddle();
+        double target = ball == null ? paddle.x + paddle.width / 2.0 : ball.getDrawX(alpha);
+        return (int) Math.max(0, Math.min(span, Math.round(target - width / 2.0)));
     }
 
     /**
-     * Stops the game when the player loses. Triggers rotation effect.
+     * Finds the board y-coordinate of the window's top edge: centred on the lowest
+     * ball, or on the paddle when no ball is in play, and kept on the board.
      * 
-     * @return void This method does not return a value.
+     * @param alpha How far the frame lies between the previous tick and the latest one.
+     * @return The camera's y-coordinate.
      */
-    public void stop() {
-        running = false;
-        repaint();
+    private int cameraY(double alpha) {
+        int span = world.getHeight() - height;
+        if (span <= 0) {
+            return 0;
+        }
+        Ball ball = world.getLowestBall();
+        double target = ball == null ? world.getPaddle().y : ball.getDrawY(alpha);
+        return (int) Math.max(0, Math.min(span, Math.round(target - height / 2.0)));
     }
 
     /**
      * The main method that starts the game.
+     * Pass {@code --active} to page-flip frames from the game loop instead of
+     * painting them through the AWT repaint queue. Set {@code -Dgame.record=<file>}
+     * to save the session as a {@link Replay} on exit, and {@code -Dgame.level=<file>}
+     * to play a {@link Level} instead of the standard board.
      * 
-     * @param args Command-line arguments (not used).
+     * @param args Command-line arguments.
      * @return void This method does not return a value.
      */
     public static void main(String[] args) {
-        YourGameName game = new YourGameName();
-        game.repaint();
-    }
-
-    /**
-     * Manages the player's score, allowing for additions and resets.
-     */
-    private class ScoreManager {
-        /** The player's current score. */
-        private int score = 0;
-
-        /**
-         * Adds points to the score.
-         * 
-         * @param points The number of points to add.
-         * @return void This method does not return a value.
-         */
-        public void addScore(int points) {
-            score += points;
-        }
-
-        /**
-         * Retrieves the player's current score.
-         * 
-         * @return The current score.
-         */
-        public int getScore() {
-            return score;
-        }
-
-        /**
-         * Resets the player's score to zero.
-         * 
-         * @return void This method does not return a value.
-         */
-        public void resetScore() {
-            score = 0;
+        RenderMode mode = RenderMode.PASSIVE;
+        for (String arg : args) {
+            if (arg.equals("--active")) {
+                mode = RenderMode.ACTIVE;
+            }
         }
+        YourGameName game = new YourGameName(mode);
+        game.startGameLoop();
     }
 }